@@ -1,6 +1,8 @@
 /*343 project program */
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
@@ -13,11 +15,11 @@ import java.nio.file.Paths;
 public class ExpandMediumText {
     public static void main(String[] args) {
         try {
-            // Read the existing medium text file
-            String existingText = new String(Files.readAllBytes(Paths.get("data/medium_text.txt")));
+            // Read the existing medium text file as bytes; copying bytes needs no decoding
+            byte[] existingText = Files.readAllBytes(Paths.get("data/medium_text.txt"));
 
             // Get current size in KB
-            long currentSizeKB = existingText.length() / 1024;
+            long currentSizeKB = existingText.length / 1024;
             System.out.println("Current size: " + currentSizeKB + " KB");
 
             // Target size in KB
@@ -33,14 +35,15 @@ public class ExpandMediumText {
             System.out.println("Repeating content " + repeatCount + " times to reach target size");
 
             // Create expanded content
-            StringBuilder expandedText = new StringBuilder(existingText);
+            ByteArrayOutputStream expandedText = new ByteArrayOutputStream(existingText.length * (repeatCount + 1) + 64 * repeatCount);
+            expandedText.writeBytes(existingText);
             for (int i = 0; i < repeatCount; i++) {
-                expandedText.append("\n--- REPEATED CONTENT SECTION " + (i+1) + " ---\n");
-                expandedText.append(existingText);
+                expandedText.writeBytes(("\n--- REPEATED CONTENT SECTION " + (i+1) + " ---\n").getBytes(StandardCharsets.UTF_8));
+                expandedText.writeBytes(existingText);
             }
 
             // Write back to the file
-            Files.write(Paths.get("data/medium_text.txt"), expandedText.toString().getBytes());
+            Files.write(Paths.get("data/medium_text.txt"), expandedText.toByteArray());
 
             // Verify new size
             long newSizeKB = Files.size(Paths.get("data/medium_text.txt")) / 1024;
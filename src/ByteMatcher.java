@@ -0,0 +1,88 @@
+package src;
+import src.utils.MatchBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/**
+ * Interface for string matching algorithms that work directly on bytes.
+ * These search a ByteBuffer (for example a memory-mapped file) or a byte array
+ * without decoding it into a String first.
+ *
+ * UTF-8 is self-synchronizing: no character's encoding occurs inside another's,
+ * so in valid UTF-8 text the byte matches of a UTF-8 encoded pattern are exactly
+ * its character matches, reported as byte offsets. Utf8OffsetTranslator turns
+ * those into char offsets when needed.
+ */
+public interface ByteMatcher {
+    /**
+     * Finds all occurrences of pattern in the remaining bytes of text.
+     * The buffer's position and limit are not modified.
+     * @param text The bytes to search, from text.position() to text.limit()
+     * @param pattern The bytes to search for
+     * @param sink Receives the starting index of every match, relative to text.position()
+     */
+    void findMatches(ByteBuffer text, byte[] pattern, IntConsumer sink);
+
+    /**
+     * Finds all occurrences of pattern in the remaining bytes of text
+     * @param text The bytes to search, from text.position() to text.limit()
+     * @param pattern The bytes to search for
+     * @return Array of starting indices, relative to text.position()
+     */
+    default int[] findMatches(ByteBuffer text, byte[] pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * Finds all occurrences of pattern in text
+     * @param text The bytes to search
+     * @param pattern The bytes to search for
+     * @param sink Receives the starting index of every match
+     */
+    default void findMatches(byte[] text, byte[] pattern, IntConsumer sink) {
+        if (text != null) {
+            findMatches(ByteBuffer.wrap(text), pattern, sink);
+        }
+    }
+
+    /**
+     * Finds all occurrences of pattern in text
+     * @param text The bytes to search
+     * @param pattern The bytes to search for
+     * @return Array of starting indices
+     */
+    default int[] findMatches(byte[] text, byte[] pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * Finds all occurrences of pattern in UTF-8 encoded text without decoding it
+     * @param text UTF-8 bytes to search, from text.position() to text.limit()
+     * @param pattern The pattern, encoded to UTF-8 once per call
+     * @return Array of starting byte offsets, relative to text.position()
+     */
+    default int[] findMatchesUtf8(ByteBuffer text, String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return findMatches(text, pattern.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Finds all occurrences of pattern in UTF-8 encoded text without decoding it
+     * @param text UTF-8 bytes to search
+     * @param pattern The pattern, encoded to UTF-8 once per call
+     * @return Array of starting byte offsets
+     */
+    default int[] findMatchesUtf8(byte[] text, String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return findMatches(text, pattern.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+package src;
+import src.utils.MatchBuffer;
+import src.utils.MatchIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A pattern that has already been preprocessed by one of the algorithms
+ * (KMP's LPS array, Boyer-Moore's bad character table, Rabin-Karp's pattern hash).
+ * Instances are immutable and thread-safe, so one compiled pattern can be
+ * reused across any number of texts and threads.
+ */
+public interface CompiledPattern {
+    /**
+     * Returns the pattern this instance was compiled from
+     * @return The original pattern
+     */
+    String pattern();
+
+    /**
+     * Finds all occurrences of the compiled pattern in text
+     * @param text The text to search within
+     * @param sink Receives the starting index of every match, in increasing order
+     */
+    void findMatches(String text, IntConsumer sink);
+
+    /**
+     * Finds all occurrences of the compiled pattern in text along with the number
+     * of comparisons this search performed (preprocessing is not included)
+     * @param text The text to search within
+     * @return The matches and comparison count of this search (untimed)
+     */
+    MatchResult search(String text);
+
+    /**
+     * Finds all occurrences of the compiled pattern in text
+     * @param text The text to search within
+     * @return Array of starting indices where the pattern was found
+     */
+    default int[] findMatches(String text) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * Finds the occurrences starting at or after from, stopping once limit of
+     * them have been reported. Algorithms override this to end their scan early;
+     * by default the whole text is scanned and the other matches are dropped.
+     * @param text The text to search within
+     * @param from First starting index to report; negative values count as 0
+     * @param limit Maximum number of matches to report, at least 1
+     * @param sink Receives the starting index of each reported match, in increasing order
+     */
+    default void findMatches(String text, int from, int limit, IntConsumer sink) {
+        int[] reported = {0};
+        findMatches(text, position -> {
+            if (position >= from && reported[0] < limit) {
+                reported[0]++;
+                sink.accept(position);
+            }
+        });
+    }
+
+    /**
+     * Finds the first occurrence at or after from, ending the scan there
+     * @param text The text to search within
+     * @param from First starting index to consider; negative values count as 0
+     * @return Starting index of the first such occurrence, or -1 if there is none
+     */
+    default int indexOf(String text, int from) {
+        int[] first = {-1};
+        findMatches(text, from, 1, position -> first[0] = position);
+        return first[0];
+    }
+
+    /**
+     * @param text The text to search within
+     * @return Whether the pattern occurs in text, stopping at the first occurrence
+     */
+    default boolean contains(String text) {
+        return indexOf(text, 0) >= 0;
+    }
+
+    /**
+     * Iterates over the occurrences lazily, scanning only as far as they are consumed
+     * @param text The text to search within
+     * @return The starting indices in increasing order
+     */
+    default MatchIterator iterator(String text) {
+        return MatchIterator.over(this, text);
+    }
+
+    /**
+     * Lazy stream of the occurrences; a short-circuiting operation such as
+     * limit or findFirst stops the scan
+     * @param text The text to search within
+     * @return The starting indices in increasing order
+     */
+    default IntStream matches(String text) {
+        return iterator(text).stream();
+    }
+
+    /**
+     * Counts the occurrences without storing their offsets
+     * @param text The text to search within
+     * @return Number of occurrences
+     */
+    default int count(String text) {
+        int[] count = {0};
+        findMatches(text, position -> count[0]++);
+        return count[0];
+    }
+}
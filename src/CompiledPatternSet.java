@@ -0,0 +1,59 @@
+package src;
+import src.utils.MatchBuffer;
+
+/**
+ * A set of patterns preprocessed together so that all of them can be searched
+ * for in one call. Each pattern is identified by its index in the collection it
+ * was compiled from. Instances are immutable and thread-safe.
+ */
+public interface CompiledPatternSet {
+    /**
+     * Receives one (pattern, offset) pair per match
+     */
+    @FunctionalInterface
+    interface MatchSink {
+        /**
+         * @param patternId Index of the matched pattern
+         * @param offset Starting index of the match in the text
+         */
+        void accept(int patternId, int offset);
+    }
+
+    /**
+     * @return Number of patterns in the set
+     */
+    int size();
+
+    /**
+     * @param patternId Index of a pattern in the set
+     * @return The pattern with that index
+     */
+    String pattern(int patternId);
+
+    /**
+     * Finds all occurrences of every pattern in text. Matches of different patterns
+     * may be interleaved, but the offsets of any one pattern arrive in increasing order.
+     * @param text The text to search within
+     * @param sink Receives the pattern id and starting index of every match
+     */
+    void findMatches(String text, MatchSink sink);
+
+    /**
+     * Finds all occurrences of every pattern in text
+     * @param text The text to search within
+     * @return For each pattern id, the starting indices of its matches in increasing order
+     */
+    default int[][] findMatches(String text) {
+        MatchBuffer[] buffers = new MatchBuffer[size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new MatchBuffer();
+        }
+        findMatches(text, (patternId, offset) -> buffers[patternId].add(offset));
+
+        int[][] matches = new int[buffers.length][];
+        for (int i = 0; i < buffers.length; i++) {
+            matches[i] = buffers[i].toArray();
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,366 @@
+package src;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import src.algorithms.AdaptiveMatcher;
+import src.algorithms.BoyerMooreGalilMatcher;
+import src.algorithms.CachingMatcher;
+import src.algorithms.BoyerMooreMatcher;
+import src.algorithms.HorspoolMatcher;
+import src.algorithms.KMPMatcher;
+import src.algorithms.NaiveMatcher;
+import src.algorithms.RabinKarpMatcher;
+import src.algorithms.SundayMatcher;
+import src.algorithms.TwoWayMatcher;
+import src.utils.LatencyHistogram;
+import src.utils.LruCache;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Resident search server. Texts are loaded once at startup and shared by every
+ * request, so a query costs only the search instead of a JVM start and a text load.
+ * Every algorithm is wrapped in a CachingMatcher; all of them share one LRU cache
+ * of compiled patterns and one of match offsets, so repeated queries skip
+ * preprocessing and, while their offsets stay cached, the search itself.
+ *
+ * The server listens on the loopback interface and runs each request on its
+ * own virtual thread. Endpoints (all GET, answers in JSON):
+ *   /search?corpus=ID&amp;pattern=P[&amp;mode=all|count|contains|first][&amp;from=N][&amp;limit=N][&amp;algorithm=NAME]
+ *   /corpora   ids and lengths of the loaded texts
+ *   /stats     request count, mean, p50, p99 and max latency per mode, and cache counters
+ *
+ * Usage: java src.MainRunner [--port N] [ID=FILE ...]
+ * Without corpus arguments every .txt file in data/ is loaded, named after the file.
+ */
+public class MainRunner {
+    public static final int DEFAULT_PORT = 8080;
+    public static final String DEFAULT_ALGORITHM = "adaptive";
+
+    // Compiled patterns kept, and match offsets kept over all cached results
+    public static final int DEFAULT_CACHED_PATTERNS = 10_000;
+    public static final long DEFAULT_CACHED_OFFSETS = 1L << 22;
+
+    private static final int MAX_REPORTED_MATCHES = 10_000;
+
+    /**
+     * What a search request returns
+     */
+    public enum Mode {
+        /** Offsets of the matches, at most limit of them */
+        ALL,
+        /** Number of matches, without storing offsets */
+        COUNT,
+        /** Whether there is a match, stopping at the first */
+        CONTAINS,
+        /** Offset of the first match at or after from, or -1 */
+        FIRST
+    }
+
+    private final Map<String, String> corpora;
+    private final Map<String, StringMatcher> algorithms;
+    private final LruCache<CachingMatcher.PatternKey, CompiledPattern> compiledPatterns;
+    private final LruCache<CachingMatcher.ResultKey, int[]> results;
+    private final Map<Mode, LatencyHistogram> latencies = new EnumMap<>(Mode.class);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Uses the default cache sizes
+     * @param corpora Texts by id, shared read-only by all requests
+     */
+    public MainRunner(Map<String, String> corpora) {
+        this(corpora, DEFAULT_CACHED_PATTERNS, DEFAULT_CACHED_OFFSETS);
+    }
+
+    /**
+     * @param corpora Texts by id, shared read-only by all requests
+     * @param cachedPatterns Number of compiled patterns kept
+     * @param cachedOffsets Number of match offsets kept over all cached results, or 0 to cache no results
+     */
+    public MainRunner(Map<String, String> corpora, int cachedPatterns, long cachedOffsets) {
+        if (corpora == null) {
+            throw new IllegalArgumentException("corpora must not be null");
+        }
+        this.corpora = Map.copyOf(corpora);
+        this.compiledPatterns = CachingMatcher.compiledPatternCache(cachedPatterns);
+        this.results = cachedOffsets == 0 ? null : CachingMatcher.resultCache(cachedOffsets);
+        this.algorithms = new LinkedHashMap<>();
+        for (Map.Entry<String, StringMatcher> algorithm : createAlgorithms().entrySet()) {
+            algorithms.put(algorithm.getKey(), new CachingMatcher(algorithm.getValue(), compiledPatterns, results));
+        }
+        for (Mode mode : Mode.values()) {
+            latencies.put(mode, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        Map<String, String> corpora = new TreeMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].contains("=")) {
+                String id = args[i].substring(0, args[i].indexOf('='));
+                corpora.put(id, Files.readString(Paths.get(args[i].substring(id.length() + 1))));
+            } else {
+                System.err.println("Usage: java src.MainRunner [--port N] [ID=FILE ...]");
+                return;
+            }
+        }
+        if (corpora.isEmpty()) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("data"), "*.txt")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    corpora.put(name.substring(0, name.length() - 4), Files.readString(file));
+                }
+            }
+        }
+
+        MainRunner runner = new MainRunner(corpora);
+        runner.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            runner.stop();
+            System.out.println(runner.statsJson());
+        }));
+        for (Map.Entry<String, String> corpus : corpora.entrySet()) {
+            System.out.printf("Loaded corpus %s (%d characters)%n", corpus.getKey(), corpus.getValue().length());
+        }
+        System.out.printf("Serving on http://localhost:%d/search?corpus=ID&pattern=P%n", runner.getPort());
+    }
+
+    /**
+     * Starts serving on the loopback interface
+     * @param port The port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/search", this::handleSearch);
+        server.createContext("/corpora", exchange -> respond(exchange, 200, corporaJson()));
+        server.createContext("/stats", exchange -> respond(exchange, 200, statsJson()));
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for running ones
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    /**
+     * @return The port being served
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Runs one search against a loaded corpus
+     * @param corpusId Id of a loaded text
+     * @param pattern The pattern to search for
+     * @param mode What to return
+     * @param from First offset considered by FIRST
+     * @param limit Maximum number of offsets returned by ALL
+     * @param algorithm Name of the algorithm, see createAlgorithms()
+     * @return The response body
+     * @throws IllegalArgumentException if the corpus or algorithm is unknown
+     */
+    public String search(String corpusId, String pattern, Mode mode, int from, int limit, String algorithm) {
+        String text = corpora.get(corpusId);
+        if (text == null) {
+            throw new IllegalArgumentException("unknown corpus: " + corpusId);
+        }
+        StringMatcher matcher = algorithms.get(algorithm);
+        if (matcher == null) {
+            throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"corpus\":").append(quote(corpusId))
+                .append(",\"pattern\":").append(quote(pattern))
+                .append(",\"mode\":\"").append(mode.name().toLowerCase(Locale.ROOT)).append('"');
+        switch (mode) {
+            case COUNT:
+                json.append(",\"count\":").append(matcher.count(text, pattern));
+                break;
+            case CONTAINS:
+                json.append(",\"contains\":").append(matcher.contains(text, pattern));
+                break;
+            case FIRST:
+                json.append(",\"index\":").append(matcher.indexOf(text, pattern, from));
+                break;
+            default:
+                int[] matches = matcher.matches(text, pattern).limit(limit).toArray();
+                json.append(",\"matches\":[");
+                for (int i = 0; i < matches.length; i++) {
+                    json.append(i == 0 ? "" : ",").append(matches[i]);
+                }
+                json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * @return Latencies of the search requests served in mode
+     */
+    public LatencyHistogram getLatencies(Mode mode) {
+        return latencies.get(mode);
+    }
+
+    /**
+     * Names accepted by the algorithm parameter
+     */
+    static Map<String, StringMatcher> createAlgorithms() {
+        Map<String, StringMatcher> algorithms = new LinkedHashMap<>();
+        algorithms.put(DEFAULT_ALGORITHM, new AdaptiveMatcher());
+        algorithms.put("naive", new NaiveMatcher());
+        algorithms.put("kmp", new KMPMatcher());
+        algorithms.put("boyer-moore", new BoyerMooreMatcher());
+        algorithms.put("galil", new BoyerMooreGalilMatcher());
+        algorithms.put("horspool", new HorspoolMatcher());
+        algorithms.put("sunday", new SundayMatcher());
+        algorithms.put("two-way", new TwoWayMatcher());
+        algorithms.put("rabin-karp", new RabinKarpMatcher());
+        return algorithms;
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Mode mode = Mode.ALL;
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, error("use GET"));
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String corpusId = query.get("corpus");
+            String pattern = query.get("pattern");
+            if (corpusId == null || pattern == null) {
+                respond(exchange, 400, error("corpus and pattern are required"));
+                return;
+            }
+            mode = Mode.valueOf(query.getOrDefault("mode", "all").toUpperCase(Locale.ROOT));
+            int from = Integer.parseInt(query.getOrDefault("from", "0"));
+            int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(MAX_REPORTED_MATCHES)));
+            if (limit < 1 || limit > MAX_REPORTED_MATCHES) {
+                throw new IllegalArgumentException("limit must be in [1, " + MAX_REPORTED_MATCHES + "]");
+            }
+            String algorithm = query.getOrDefault("algorithm", DEFAULT_ALGORITHM);
+
+            String body = search(corpusId, pattern, mode, from, limit, algorithm);
+            latencies.get(mode).record(System.nanoTime() - start);
+            respond(exchange, 200, body);
+        } catch (IllegalArgumentException e) {
+            // Also covers unknown modes and malformed numbers
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            respond(exchange, 500, error(e.toString()));
+        }
+    }
+
+    private String corporaJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, String> corpus : new TreeMap<>(corpora).entrySet()) {
+            json.append(json.length() == 1 ? "" : ",")
+                    .append(quote(corpus.getKey())).append(':').append(corpus.getValue().length());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Latency summary in microseconds for every mode that has served a request,
+     * followed by the cache counters
+     */
+    String statsJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"compiledPatterns\":").append(cacheJson(compiledPatterns));
+        if (results != null) {
+            json.append(",\"results\":").append(cacheJson(results));
+        }
+        for (Mode mode : Mode.values()) {
+            LatencyHistogram histogram = latencies.get(mode);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            json.append(",\"").append(mode.name().toLowerCase(Locale.ROOT)).append("\":{")
+                    .append("\"requests\":").append(histogram.count())
+                    .append(String.format(Locale.ROOT, ",\"meanMicros\":%.1f", histogram.mean() / 1000))
+                    .append(",\"p50Micros\":").append(histogram.percentile(50) / 1000)
+                    .append(",\"p99Micros\":").append(histogram.percentile(99) / 1000)
+                    .append(",\"maxMicros\":").append(histogram.max() / 1000)
+                    .append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String cacheJson(LruCache<?, ?> cache) {
+        return String.format(Locale.ROOT,
+                "{\"entries\":%d,\"weight\":%d,\"hits\":%d,\"misses\":%d,\"evictions\":%d,\"hitRate\":%.3f}",
+                cache.size(), cache.weight(), cache.hits(), cache.misses(), cache.evictions(), cache.hitRate());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,106 @@
+package src;
+
+/**
+ * Immutable outcome of a single search: the match positions together with the
+ * statistics for that call. Returning statistics here instead of keeping them
+ * in the matcher lets one matcher instance be shared by many threads.
+ */
+public final class MatchResult {
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final int[] matches;
+    private final long comparisons;
+    private final long elapsedNanos;
+    private final long collisions;
+
+    /**
+     * @param matches Starting indices of the matches, in increasing order
+     * @param comparisons Number of character comparisons performed
+     * @param elapsedNanos Wall-clock time of the search, or -1 if it was not timed
+     * @param collisions Number of hash hits that turned out not to be matches
+     */
+    public MatchResult(int[] matches, long comparisons, long elapsedNanos, long collisions) {
+        this.matches = matches;
+        this.comparisons = comparisons;
+        this.elapsedNanos = elapsedNanos;
+        this.collisions = collisions;
+    }
+
+    /**
+     * @param matches Starting indices of the matches, in increasing order
+     * @param comparisons Number of character comparisons performed
+     * @param elapsedNanos Wall-clock time of the search, or -1 if it was not timed
+     */
+    public MatchResult(int[] matches, long comparisons, long elapsedNanos) {
+        this(matches, comparisons, elapsedNanos, 0);
+    }
+
+    /**
+     * @param matches Starting indices of the matches, in increasing order
+     * @param comparisons Number of character comparisons performed
+     */
+    public MatchResult(int[] matches, long comparisons) {
+        this(matches, comparisons, -1);
+    }
+
+    /**
+     * Result for a search that could not match anything (null input or pattern longer than text)
+     */
+    public static MatchResult empty() {
+        return new MatchResult(NO_MATCHES, 0);
+    }
+
+    /**
+     * @return Starting indices where the pattern was found
+     */
+    public int[] getMatches() {
+        return matches;
+    }
+
+    /**
+     * @return Number of matches found
+     */
+    public int getMatchCount() {
+        return matches.length;
+    }
+
+    /**
+     * @return Number of character comparisons performed by this search
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return True if the search was timed
+     */
+    public boolean isTimed() {
+        return elapsedNanos >= 0;
+    }
+
+    /**
+     * @return Wall-clock time of the search in nanoseconds, or -1 if it was not timed
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Hash collisions are windows whose hash matched the pattern's but whose
+     * characters did not, so they were verified for nothing. Always 0 for
+     * algorithms that do not hash.
+     * @return Number of hash collisions in this search
+     */
+    public long getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * Returns a copy of this result carrying the given elapsed time
+     * @param nanos Elapsed time in nanoseconds
+     * @return A timed copy of this result
+     */
+    public MatchResult withElapsedNanos(long nanos) {
+        return new MatchResult(matches, comparisons, nanos, collisions);
+    }
+}
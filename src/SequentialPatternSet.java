@@ -0,0 +1,45 @@
+package src;
+import java.util.Collection;
+
+/**
+ * Pattern set that compiles every pattern separately with one algorithm and
+ * searches the text once per pattern. This is the behaviour of calling
+ * findMatches in a loop, and is the baseline the multi-pattern algorithms are
+ * compared against.
+ */
+public final class SequentialPatternSet implements CompiledPatternSet {
+    private final CompiledPattern[] compiled;
+
+    /**
+     * @param matcher The algorithm used for every pattern
+     * @param patterns The patterns, identified by their iteration order
+     */
+    public SequentialPatternSet(StringMatcher matcher, Collection<String> patterns) {
+        if (matcher == null || patterns == null) {
+            throw new IllegalArgumentException("matcher and patterns must not be null");
+        }
+        compiled = new CompiledPattern[patterns.size()];
+        int i = 0;
+        for (String pattern : patterns) {
+            compiled[i++] = matcher.compile(pattern);
+        }
+    }
+
+    @Override
+    public int size() {
+        return compiled.length;
+    }
+
+    @Override
+    public String pattern(int patternId) {
+        return compiled[patternId].pattern();
+    }
+
+    @Override
+    public void findMatches(String text, MatchSink sink) {
+        for (int id = 0; id < compiled.length; id++) {
+            final int patternId = id;
+            compiled[id].findMatches(text, offset -> sink.accept(patternId, offset));
+        }
+    }
+}
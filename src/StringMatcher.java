@@ -1,4 +1,9 @@
 package src;
+import src.utils.CaseFolding;
+import src.utils.MatchIterator;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Interface that all string matching algorithms will implement
@@ -13,7 +18,132 @@ public interface StringMatcher {
     int[] findMatches(String text, String pattern);
 
     /**
-     * Returns the number of character comparisons performed in the last search
+     * Finds all occurrences of pattern in text, passing each starting index to sink
+     * in increasing order as soon as it is found. No storage is allocated per match.
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @param sink Receives the starting index of every match
+     */
+    void findMatches(String text, String pattern, IntConsumer sink);
+
+    /**
+     * Preprocesses pattern once so it can be searched for in many texts.
+     * The returned object is immutable and safe to share between threads.
+     * @param pattern The pattern to preprocess
+     * @return A reusable searcher for pattern
+     * @throws IllegalArgumentException if pattern is null
+     */
+    CompiledPattern compile(String pattern);
+
+    /**
+     * Preprocesses a set of patterns for searching all of them at once.
+     * By default every pattern is compiled separately and the text is scanned
+     * once per pattern; multi-pattern algorithms override this with a single pass.
+     * @param patterns The patterns, identified by their iteration order
+     * @return A reusable, thread-safe searcher for the whole set
+     */
+    default CompiledPatternSet compileAll(Collection<String> patterns) {
+        return new SequentialPatternSet(this, patterns);
+    }
+
+    /**
+     * Finds all occurrences of pattern in text and returns them together with the
+     * statistics for this call. Implementations keep no per-call state in the
+     * matcher, so this method is safe to call from many threads on one instance.
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return The matches and comparison count of this search (untimed)
+     */
+    MatchResult search(String text, String pattern);
+
+    /**
+     * Same as search, but also records the wall-clock time of the call
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return The matches, comparison count and elapsed time of this search
+     */
+    default MatchResult searchTimed(String text, String pattern) {
+        long start = System.nanoTime();
+        MatchResult result = search(text, pattern);
+        return result.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Finds the first occurrence of pattern at or after from, ending the scan
+     * there instead of collecting every match
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @param from First starting index to consider; negative values count as 0
+     * @return Starting index of the first such occurrence, or -1 if there is none
+     */
+    default int indexOf(String text, String pattern, int from) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return -1;
+        }
+        return compile(pattern).indexOf(text, from);
+    }
+
+    /**
+     * Checks whether pattern occurs in text, stopping at the first occurrence
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return Whether there is at least one occurrence
+     */
+    default boolean contains(String text, String pattern) {
+        return indexOf(text, pattern, 0) >= 0;
+    }
+
+    /**
+     * Counts the occurrences of pattern in text without storing their offsets
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return Number of occurrences
+     */
+    default int count(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return 0;
+        }
+        return compile(pattern).count(text);
+    }
+
+    /**
+     * Iterates over the occurrences of pattern lazily: the algorithm runs only as
+     * far as the offsets are consumed, so stopping early skips the rest of the scan
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return The starting indices in increasing order
+     */
+    default MatchIterator iterator(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchIterator.empty();
+        }
+        return compile(pattern).iterator(text);
+    }
+
+    /**
+     * Lazy stream of the occurrences of pattern; a short-circuiting operation
+     * such as limit or findFirst stops the scan
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return The starting indices in increasing order
+     */
+    default IntStream matches(String text, String pattern) {
+        return iterator(text, pattern).stream();
+    }
+
+    /**
+     * Matchers with the same folding find the same matches for any text and
+     * pattern, which lets caches share results between algorithms
+     * @return How this matcher folds characters before comparing them; NONE by default
+     */
+    default CaseFolding getCaseFolding() {
+        return CaseFolding.NONE;
+    }
+
+    /**
+     * Returns the number of character comparisons performed in the last search.
+     * This is shared state of the instance and is only meaningful when the matcher
+     * is used by one thread; concurrent callers should use search instead.
      * @return Count of character comparisons
      */
     long getComparisons();
@@ -0,0 +1,38 @@
+package src;
+
+/**
+ * A full-text index built once over a fixed text, answering occurrence queries
+ * for any pattern without scanning the text again. Offsets follow the
+ * StringMatcher conventions: the empty pattern occurs at every position
+ * 0..length(). Instances are immutable and thread-safe.
+ */
+public interface TextIndex {
+    /**
+     * @return Length of the indexed text
+     */
+    int length();
+
+    /**
+     * Counts the occurrences of pattern without listing them
+     * @param pattern The pattern to search for
+     * @return Number of occurrences
+     */
+    int count(String pattern);
+
+    /**
+     * Finds all occurrences of pattern; comparisons are the character
+     * comparisons (or rank queries) spent by the index
+     * @param pattern The pattern to search for
+     * @return The starting indices in increasing order, with the query cost
+     */
+    MatchResult search(String pattern);
+
+    /**
+     * Finds all occurrences of pattern
+     * @param pattern The pattern to search for
+     * @return Starting indices of the occurrences in increasing order
+     */
+    default int[] locate(String pattern) {
+        return search(pattern).getMatches();
+    }
+}
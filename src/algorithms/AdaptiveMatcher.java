@@ -0,0 +1,374 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.LruCache;
+import src.utils.PatternProfile;
+import src.utils.TimerUtil;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Chooses an algorithm per search from the shape of the input.
+ * Every call is classified into a Workload from the text length and the pattern's
+ * length, periodicity and number of distinct characters, and is run by the engine
+ * chosen for that workload. Pattern profiles are kept in a small LRU cache, so a
+ * pattern searched repeatedly is analyzed once. The initial choices follow the project's measurements;
+ * calibrate() replaces them by timing every engine on each workload on the
+ * current machine, and also moves the small-text threshold.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class AdaptiveMatcher implements StringMatcher {
+    /**
+     * Kinds of search that are routed to an engine independently
+     */
+    public enum Workload {
+        /** Text shorter than the small-text threshold, where preprocessing does not pay off */
+        SMALL_TEXT,
+        /** Pattern of at most SHORT_PATTERN_LENGTH characters */
+        SHORT_PATTERN,
+        /** Pattern between the short and long limits */
+        MEDIUM_PATTERN,
+        /** Pattern of at least LONG_PATTERN_LENGTH characters */
+        LONG_PATTERN,
+        /** Pattern made of a repeated substring, such as "ab" repeated */
+        REPETITIVE,
+        /** Pattern over a few distinct characters (binary or DNA data) */
+        SMALL_ALPHABET
+    }
+
+    // Default text length below which a search counts as SMALL_TEXT
+    public static final int DEFAULT_SMALL_TEXT_LENGTH = 1000;
+    // Patterns up to this length are SHORT_PATTERN
+    public static final int SHORT_PATTERN_LENGTH = 8;
+    // Patterns from this length are LONG_PATTERN
+    public static final int LONG_PATTERN_LENGTH = 64;
+    // Patterns with at most this many distinct characters are SMALL_ALPHABET
+    public static final int SMALL_ALPHABET_SIZE = 4;
+    // Time spent per engine and measured iteration during calibration
+    public static final long DEFAULT_CALIBRATION_NANOS = 5_000_000;
+
+    private static final int CALIBRATION_TEXT_LENGTH = 1 << 16;
+    private static final int CALIBRATION_ITERATIONS = 3;
+    // Average distance between the breaks in the periodic calibration text
+    private static final int PERIODIC_MISMATCH_INTERVAL = 200;
+    // Number of pattern profiles kept between calls
+    private static final int PROFILE_CACHE_SIZE = 256;
+    private static final int[] SMALL_TEXT_CANDIDATES = {64, 128, 256, 512, 1024, 2048, 4096, 8192, 16384};
+
+    private final StringMatcher[] engines;
+    private final LruCache<String, PatternProfile> profiles = new LruCache<>(PROFILE_CACHE_SIZE);
+    private volatile Selection selection;
+    private long comparisons;
+
+    /**
+     * Chooses among all portable algorithms of the project, starting from the measured defaults
+     */
+    public AdaptiveMatcher() {
+        NaiveMatcher naive = new NaiveMatcher();
+        BoyerMooreGalilMatcher galil = new BoyerMooreGalilMatcher();
+        HorspoolMatcher horspool = new HorspoolMatcher();
+        this.engines = new StringMatcher[]{
+                naive, new KMPMatcher(), new BoyerMooreMatcher(), galil,
+                horspool, new SundayMatcher(), new TwoWayMatcher(), new RabinKarpMatcher()
+        };
+
+        Map<Workload, StringMatcher> defaults = new EnumMap<>(Workload.class);
+        defaults.put(Workload.SMALL_TEXT, naive);
+        defaults.put(Workload.SHORT_PATTERN, horspool);
+        defaults.put(Workload.MEDIUM_PATTERN, horspool);
+        defaults.put(Workload.LONG_PATTERN, horspool);
+        // Linear worst case where bad character skips degrade
+        defaults.put(Workload.REPETITIVE, galil);
+        defaults.put(Workload.SMALL_ALPHABET, galil);
+        this.selection = new Selection(defaults, DEFAULT_SMALL_TEXT_LENGTH);
+    }
+
+    /**
+     * Chooses among the given engines. The first engine serves every workload
+     * until calibrate() has been run.
+     * @param engines The candidate algorithms
+     */
+    public AdaptiveMatcher(StringMatcher... engines) {
+        if (engines == null || engines.length == 0) {
+            throw new IllegalArgumentException("at least one engine is required");
+        }
+        for (StringMatcher engine : engines) {
+            if (engine == null) {
+                throw new IllegalArgumentException("engines must not contain null");
+            }
+        }
+        this.engines = engines.clone();
+
+        Map<Workload, StringMatcher> defaults = new EnumMap<>(Workload.class);
+        for (Workload workload : Workload.values()) {
+            defaults.put(workload, engines[0]);
+        }
+        this.selection = new Selection(defaults, DEFAULT_SMALL_TEXT_LENGTH);
+    }
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return new int[0];
+        }
+
+        StringMatcher engine = select(text, pattern);
+        int[] matches = engine.findMatches(text, pattern);
+        comparisons = engine.getComparisons();
+        return matches;
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        StringMatcher engine = select(text, pattern);
+        engine.findMatches(text, pattern, sink);
+        comparisons = engine.getComparisons();
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        return select(text, pattern).search(text, pattern);
+    }
+
+    /**
+     * Runs on the engine chosen for this text, which ends its scan at the first match
+     */
+    @Override
+    public int indexOf(String text, String pattern, int from) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return -1;
+        }
+        return select(text, pattern).indexOf(text, pattern, from);
+    }
+
+    @Override
+    public int count(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return 0;
+        }
+        return select(text, pattern).count(text, pattern);
+    }
+
+    /**
+     * The text is not known yet, so the engine is chosen for a large text from the pattern alone
+     * @param pattern The pattern to preprocess
+     * @return The chosen engine's compiled pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return selection.engine(classify(Integer.MAX_VALUE, pattern)).compile(pattern);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Classifies a search by the text length and the pattern's profile
+     * @param textLength Length of the text to be searched
+     * @param pattern The pattern to search for
+     * @return The workload the search belongs to
+     */
+    public Workload classify(int textLength, String pattern) {
+        if (textLength < selection.smallTextLength) {
+            return Workload.SMALL_TEXT;
+        }
+        int m = pattern.length();
+        if (m <= SHORT_PATTERN_LENGTH) {
+            return Workload.SHORT_PATTERN;
+        }
+
+        PatternProfile profile = profiles.computeIfAbsent(pattern, PatternProfile::of);
+        if (profile.isRepetitive()) {
+            return Workload.REPETITIVE;
+        }
+        if (profile.getDistinctChars() <= SMALL_ALPHABET_SIZE) {
+            return Workload.SMALL_ALPHABET;
+        }
+        return m >= LONG_PATTERN_LENGTH ? Workload.LONG_PATTERN : Workload.MEDIUM_PATTERN;
+    }
+
+    /**
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @return The engine that will run this search
+     */
+    public StringMatcher select(String text, String pattern) {
+        return selection.engine(classify(text.length(), pattern));
+    }
+
+    /**
+     * @param workload A kind of search
+     * @return The engine currently chosen for workload
+     */
+    public StringMatcher getEngine(Workload workload) {
+        return selection.engine(workload);
+    }
+
+    /**
+     * @return Text length below which a search counts as SMALL_TEXT
+     */
+    public int getSmallTextLength() {
+        return selection.smallTextLength;
+    }
+
+    /**
+     * Calibrates with the default time budget
+     * @param sampleText Text representative of what will be searched
+     */
+    public void calibrate(String sampleText) {
+        calibrate(sampleText, DEFAULT_CALIBRATION_NANOS);
+    }
+
+    /**
+     * Times every engine on a sample of each workload on this machine and routes
+     * each workload to the fastest one, then moves the small-text threshold to the
+     * largest tested length where the small-text engine still wins.
+     * Searches running concurrently keep using the previous choices until it returns.
+     * @param sampleText Text representative of what will be searched
+     * @param iterationNanos Time spent per engine and measured iteration
+     */
+    public void calibrate(String sampleText, long iterationNanos) {
+        if (sampleText == null || sampleText.length() < LONG_PATTERN_LENGTH * 2) {
+            throw new IllegalArgumentException("sampleText must have at least "
+                    + (LONG_PATTERN_LENGTH * 2) + " characters");
+        }
+        if (iterationNanos <= 0) {
+            throw new IllegalArgumentException("iterationNanos must be positive: " + iterationNanos);
+        }
+
+        String text = sampleText.length() >= CALIBRATION_TEXT_LENGTH ? sampleText
+                : sampleText.repeat(CALIBRATION_TEXT_LENGTH / sampleText.length() + 1);
+        int middle = text.length() / 2;
+
+        Map<Workload, StringMatcher> chosen = new EnumMap<>(Workload.class);
+        chosen.put(Workload.SMALL_TEXT, fastest(text.substring(0, DEFAULT_SMALL_TEXT_LENGTH),
+                text.substring(middle, middle + 5), iterationNanos));
+        chosen.put(Workload.SHORT_PATTERN, fastest(text,
+                text.substring(middle, middle + 4), iterationNanos));
+        chosen.put(Workload.MEDIUM_PATTERN, fastest(text,
+                text.substring(middle, middle + 16), iterationNanos));
+        chosen.put(Workload.LONG_PATTERN, fastest(text,
+                text.substring(middle, middle + LONG_PATTERN_LENGTH * 2), iterationNanos));
+        // Small alphabets are measured on matching data: random DNA
+        String dna = randomText("ACGT", CALIBRATION_TEXT_LENGTH);
+        int dnaMiddle = dna.length() / 2;
+        chosen.put(Workload.SMALL_ALPHABET, fastest(dna, dna.substring(dnaMiddle, dnaMiddle + 24), iterationNanos));
+
+        // Repetitive patterns are measured on periodic text where they match and nearly match
+        chosen.put(Workload.REPETITIVE, fastest(periodicText("ab", CALIBRATION_TEXT_LENGTH),
+                "ab".repeat(LONG_PATTERN_LENGTH / 2), iterationNanos));
+
+        // Raise the threshold while the small-text engine beats the short-pattern engine
+        StringMatcher small = chosen.get(Workload.SMALL_TEXT);
+        StringMatcher regular = chosen.get(Workload.SHORT_PATTERN);
+        int smallTextLength = SMALL_TEXT_CANDIDATES[0];
+        if (small != regular) {
+            for (int length : SMALL_TEXT_CANDIDATES) {
+                String prefix = text.substring(0, length);
+                String pattern = prefix.substring(length / 2, length / 2 + 5);
+                if (measure(small, prefix, pattern, iterationNanos)
+                        > measure(regular, prefix, pattern, iterationNanos)) {
+                    break;
+                }
+                smallTextLength = length * 2;
+            }
+        }
+
+        selection = new Selection(chosen, smallTextLength);
+    }
+
+    /**
+     * Returns the engine with the lowest time per search
+     */
+    private StringMatcher fastest(String text, String pattern, long iterationNanos) {
+        StringMatcher best = engines[0];
+        double bestNanos = Double.MAX_VALUE;
+        for (StringMatcher engine : engines) {
+            double nanos = measure(engine, text, pattern, iterationNanos);
+            if (nanos < bestNanos) {
+                bestNanos = nanos;
+                best = engine;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best time per search over a warmup and a few measured iterations
+     */
+    private static double measure(StringMatcher engine, String text, String pattern, long iterationNanos) {
+        TimerUtil.runIteration(() -> engine.findMatches(text, pattern).length, iterationNanos);
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ITERATIONS; i++) {
+            TimerUtil.Iteration iteration =
+                    TimerUtil.runIteration(() -> engine.findMatches(text, pattern).length, iterationNanos);
+            best = Math.min(best, iteration.nanosPerOp());
+        }
+        return best;
+    }
+
+    private static String randomText(String alphabet, int length) {
+        Random random = new Random(length);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Repeats period up to length characters and breaks the period at about one
+     * position in PERIODIC_MISMATCH_INTERVAL, so a pattern made of the period
+     * matches often and fails late, after a long partial match
+     */
+    private static String periodicText(String period, int length) {
+        Random random = new Random(length);
+        char[] text = period.repeat(length / period.length() + 1).substring(0, length).toCharArray();
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(PERIODIC_MISMATCH_INTERVAL) == 0) {
+                text[i] = 'x';
+            }
+        }
+        return new String(text);
+    }
+
+    /**
+     * Immutable routing table, replaced as a whole by calibrate()
+     */
+    private static final class Selection {
+        private final Map<Workload, StringMatcher> engines;
+        private final int smallTextLength;
+
+        Selection(Map<Workload, StringMatcher> engines, int smallTextLength) {
+            this.engines = new EnumMap<>(engines);
+            this.smallTextLength = smallTextLength;
+        }
+
+        StringMatcher engine(Workload workload) {
+            return engines.get(workload);
+        }
+    }
+}
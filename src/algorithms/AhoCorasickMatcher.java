@@ -0,0 +1,412 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.CompiledPatternSet;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.MatchBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements the Aho-Corasick multi-pattern string matching algorithm.
+ * All patterns are merged into one trie with failure links, so every pattern is
+ * found in a single left-to-right pass over the text regardless of how many
+ * patterns there are. The automaton is stored in flat arrays: the edges of each
+ * state are a sorted slice of one char array (searched by binary search), and
+ * failure links, output lists and dictionary links are int arrays indexed by state.
+ *
+ * Used as a StringMatcher it builds a one-pattern automaton; compileAll is the
+ * intended entry point for large dictionaries. Comparisons are counted as goto
+ * lookups (one per attempted transition).
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class AhoCorasickMatcher implements StringMatcher {
+    private long comparisons;
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        comparisons = Automaton.build(new String[]{pattern}).scan(text, (id, offset) -> sink.accept(offset));
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        MatchBuffer matches = new MatchBuffer();
+        long lookups = Automaton.build(new String[]{pattern}).scan(text, (id, offset) -> matches.add(offset));
+        return new MatchResult(matches.toArray(), lookups);
+    }
+
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new SinglePattern(Automaton.build(new String[]{pattern}));
+    }
+
+    /**
+     * Builds one automaton for all patterns, so the text is scanned only once
+     * @param patterns The patterns, identified by their iteration order
+     * @return A reusable, thread-safe searcher for the whole set
+     */
+    @Override
+    public CompiledPatternSet compileAll(Collection<String> patterns) {
+        if (patterns == null) {
+            throw new IllegalArgumentException("patterns must not be null");
+        }
+        return Automaton.build(patterns.toArray(new String[0]));
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Immutable Aho-Corasick automaton. States are numbered in breadth-first order,
+     * so a state's failure target always has a smaller number than the state itself.
+     */
+    private static final class Automaton implements CompiledPatternSet {
+        private static final int ROOT = 0;
+
+        private final String[] patterns;
+        // Edges of state s are edgeChars/edgeTargets[edgeStart[s] .. edgeStart[s + 1]), sorted by char
+        private final int[] edgeStart;
+        private final char[] edgeChars;
+        private final int[] edgeTargets;
+        private final int[] fail;
+        // Ids of the patterns ending at state s are outIds[outStart[s] .. outStart[s + 1])
+        private final int[] outStart;
+        private final int[] outIds;
+        // Nearest state on the failure chain of s (excluding s) that has output, or -1
+        private final int[] dictLink;
+        // Empty patterns match at every position and have no state of their own
+        private final int[] emptyIds;
+
+        private Automaton(String[] patterns, int[] edgeStart, char[] edgeChars, int[] edgeTargets,
+                          int[] fail, int[] outStart, int[] outIds, int[] dictLink, int[] emptyIds) {
+            this.patterns = patterns;
+            this.edgeStart = edgeStart;
+            this.edgeChars = edgeChars;
+            this.edgeTargets = edgeTargets;
+            this.fail = fail;
+            this.outStart = outStart;
+            this.outIds = outIds;
+            this.dictLink = dictLink;
+            this.emptyIds = emptyIds;
+        }
+
+        /**
+         * Builds the trie as linked child lists, then lays it out in breadth-first
+         * order into the flat edge arrays and computes failure and dictionary links
+         */
+        static Automaton build(String[] patterns) {
+            int totalLength = 0;
+            int emptyCount = 0;
+            for (String pattern : patterns) {
+                if (pattern == null) {
+                    throw new IllegalArgumentException("patterns must not contain null");
+                }
+                totalLength += pattern.length();
+                if (pattern.isEmpty()) {
+                    emptyCount++;
+                }
+            }
+
+            // Trie with at most totalLength + 1 nodes, children kept as sibling lists
+            int capacity = totalLength + 1;
+            char[] label = new char[capacity];
+            int[] firstChild = new int[capacity];
+            int[] nextSibling = new int[capacity];
+            int[] firstPattern = new int[capacity]; // head of the list of patterns ending here
+            int[] nextPattern = new int[patterns.length];
+            Arrays.fill(firstChild, -1);
+            Arrays.fill(firstPattern, -1);
+            int nodeCount = 1;
+
+            int[] emptyIds = new int[emptyCount];
+            emptyCount = 0;
+            for (int id = 0; id < patterns.length; id++) {
+                String pattern = patterns[id];
+                if (pattern.isEmpty()) {
+                    emptyIds[emptyCount++] = id;
+                    continue;
+                }
+
+                int node = ROOT;
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = pattern.charAt(i);
+                    int child = firstChild[node];
+                    while (child >= 0 && label[child] != c) {
+                        child = nextSibling[child];
+                    }
+                    if (child < 0) {
+                        child = nodeCount++;
+                        label[child] = c;
+                        nextSibling[child] = firstChild[node];
+                        firstChild[node] = child;
+                    }
+                    node = child;
+                }
+                nextPattern[id] = firstPattern[node];
+                firstPattern[node] = id;
+            }
+
+            // Breadth-first layout: queue[k] is the trie node that becomes state k
+            int[] queue = new int[nodeCount];
+            int[] edgeStart = new int[nodeCount + 1];
+            char[] edgeChars = new char[nodeCount - 1];
+            int[] edgeTargets = new int[nodeCount - 1];
+            int[] children = new int[nodeCount];
+            int tail = 1;
+            int edgeCount = 0;
+            queue[0] = ROOT;
+            for (int state = 0; state < nodeCount; state++) {
+                edgeStart[state] = edgeCount;
+
+                int childCount = 0;
+                for (int child = firstChild[queue[state]]; child >= 0; child = nextSibling[child]) {
+                    children[childCount++] = child;
+                }
+                // Insertion sort by label; most states have only a few children
+                for (int i = 1; i < childCount; i++) {
+                    int child = children[i];
+                    int k = i - 1;
+                    while (k >= 0 && label[children[k]] > label[child]) {
+                        children[k + 1] = children[k];
+                        k--;
+                    }
+                    children[k + 1] = child;
+                }
+
+                for (int i = 0; i < childCount; i++) {
+                    edgeChars[edgeCount] = label[children[i]];
+                    edgeTargets[edgeCount] = tail;
+                    edgeCount++;
+                    queue[tail++] = children[i];
+                }
+            }
+            edgeStart[nodeCount] = edgeCount;
+
+            // Output lists in state order
+            int[] outStart = new int[nodeCount + 1];
+            int[] outIds = new int[patterns.length - emptyIds.length];
+            int outCount = 0;
+            for (int state = 0; state < nodeCount; state++) {
+                outStart[state] = outCount;
+                for (int id = firstPattern[queue[state]]; id >= 0; id = nextPattern[id]) {
+                    outIds[outCount++] = id;
+                }
+            }
+            outStart[nodeCount] = outCount;
+
+            Automaton automaton = new Automaton(patterns, edgeStart, edgeChars, edgeTargets,
+                    new int[nodeCount], outStart, outIds, new int[nodeCount], emptyIds);
+            automaton.computeLinks();
+            return automaton;
+        }
+
+        /**
+         * Fills the failure and dictionary links in breadth-first (state) order
+         */
+        private void computeLinks() {
+            int states = fail.length;
+            fail[ROOT] = ROOT;
+            dictLink[ROOT] = -1;
+
+            for (int state = 0; state < states; state++) {
+                for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                    char c = edgeChars[e];
+                    int target = edgeTargets[e];
+
+                    int link = ROOT;
+                    if (state != ROOT) {
+                        int f = fail[state];
+                        while (true) {
+                            int next = step(f, c);
+                            if (next >= 0) {
+                                link = next;
+                                break;
+                            }
+                            if (f == ROOT) {
+                                break;
+                            }
+                            f = fail[f];
+                        }
+                    }
+                    fail[target] = link;
+                    dictLink[target] = hasOutput(link) ? link : dictLink[link];
+                }
+            }
+        }
+
+        /**
+         * Goto function: the state reached from state on c, or -1 if there is no edge
+         */
+        private int step(int state, char c) {
+            int low = edgeStart[state];
+            int high = edgeStart[state + 1] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = edgeChars[mid];
+                if (label < c) {
+                    low = mid + 1;
+                } else if (label > c) {
+                    high = mid - 1;
+                } else {
+                    return edgeTargets[mid];
+                }
+            }
+            return -1;
+        }
+
+        private boolean hasOutput(int state) {
+            return outStart[state] < outStart[state + 1];
+        }
+
+        @Override
+        public int size() {
+            return patterns.length;
+        }
+
+        @Override
+        public String pattern(int patternId) {
+            return patterns[patternId];
+        }
+
+        @Override
+        public void findMatches(String text, MatchSink sink) {
+            scan(text, sink);
+        }
+
+        long scan(String text, MatchSink sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Runs the automaton over text, reporting every (pattern, start offset) pair.
+         * Starting from the root at from finds exactly the matches starting there or later.
+         * @param text The text to search within
+         * @param from First text position read; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the pattern id and starting index of every match
+         * @return Number of goto lookups performed
+         */
+        long scan(String text, int from, int limit, MatchSink sink) {
+            if (text == null) {
+                return 0;
+            }
+
+            long lookups = 0;
+            int n = text.length();
+            int state = ROOT;
+            int found = 0;
+
+            for (int i = Math.max(from, 0); i < n; i++) {
+                for (int id : emptyIds) {
+                    sink.accept(id, i);
+                    if (++found == limit) {
+                        return lookups;
+                    }
+                }
+
+                // Follow failure links until the character can be consumed (or we are back at the root)
+                char c = text.charAt(i);
+                while (true) {
+                    lookups++;
+                    int next = step(state, c);
+                    if (next >= 0) {
+                        state = next;
+                        break;
+                    }
+                    if (state == ROOT) {
+                        break;
+                    }
+                    state = fail[state];
+                }
+
+                // Report the patterns ending here: this state's own output, then the dictionary chain
+                int out = hasOutput(state) ? state : dictLink[state];
+                while (out >= 0) {
+                    for (int k = outStart[out]; k < outStart[out + 1]; k++) {
+                        int id = outIds[k];
+                        sink.accept(id, i - patterns[id].length() + 1);
+                        if (++found == limit) {
+                            return lookups;
+                        }
+                    }
+                    out = dictLink[out];
+                }
+            }
+            if (from <= n) {
+                for (int id : emptyIds) {
+                    sink.accept(id, n);
+                    if (++found == limit) {
+                        return lookups;
+                    }
+                }
+            }
+            return lookups;
+        }
+    }
+
+    /**
+     * CompiledPattern view of a one-pattern automaton
+     */
+    private static final class SinglePattern implements CompiledPattern {
+        private final Automaton automaton;
+
+        SinglePattern(Automaton automaton) {
+            this.automaton = automaton;
+        }
+
+        @Override
+        public String pattern() {
+            return automaton.pattern(0);
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            if (text != null && pattern().length() <= text.length()) {
+                automaton.scan(text, (id, offset) -> sink.accept(offset));
+            }
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            if (text != null && pattern().length() <= text.length()) {
+                automaton.scan(text, from, limit, (id, offset) -> sink.accept(offset));
+            }
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            if (text == null || pattern().length() > text.length()) {
+                return MatchResult.empty();
+            }
+            MatchBuffer matches = new MatchBuffer();
+            long lookups = automaton.scan(text, (id, offset) -> matches.add(offset));
+            return new MatchResult(matches.toArray(), lookups);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.CharIntMap;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements the full Boyer-Moore string matching algorithm: the bad character
+ * heuristic, the strong good suffix rule and the Galil rule.
+ * After a full match the pattern moves by its period, and the characters the
+ * new alignment shares with the old match are not compared again. This keeps
+ * the worst case linear even for repetitive patterns such as "ab" repeated,
+ * where BoyerMooreMatcher (bad character rule only) needs O(nm) comparisons.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class BoyerMooreGalilMatcher implements StringMatcher {
+    private long comparisons;
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        comparisons = new Compiled(pattern).scan(text, sink);
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        Compiled compiled = new Compiled(pattern);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
+
+    /**
+     * Builds the bad character and good suffix tables once; the returned searcher reuses them
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe Boyer-Moore searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(pattern);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Preprocess the pattern for the bad character heuristic.
+     * badChar.get(c) contains the rightmost position of c in the pattern,
+     * or -1 if c does not occur in the pattern.
+     *
+     * @param pattern The pattern to preprocess
+     * @return The bad character table
+     */
+    private static CharIntMap preprocessBadChar(String pattern) {
+        CharIntMap badChar = new CharIntMap(-1);
+        for (int i = 0; i < pattern.length(); i++) {
+            badChar.put(pattern.charAt(i), i);
+        }
+        return badChar;
+    }
+
+    /**
+     * Preprocess the pattern for the strong good suffix rule.
+     * goodSuffix[j] is the shift to apply when pattern[j..m) matched and
+     * pattern[j-1] mismatched; goodSuffix[0] is the shift after a full match,
+     * which equals the period of the pattern.
+     *
+     * @param pattern The pattern to preprocess
+     * @return The good suffix shift table of length m + 1
+     */
+    static int[] preprocessGoodSuffix(String pattern) {
+        int m = pattern.length();
+        int[] shift = new int[m + 1];
+        // border[i] is the start of the widest border of the suffix pattern[i..m)
+        int[] border = new int[m + 1];
+
+        // Case 1: the matched suffix occurs elsewhere, preceded by a different character
+        int i = m;
+        int j = m + 1;
+        border[i] = j;
+        while (i > 0) {
+            while (j <= m && pattern.charAt(i - 1) != pattern.charAt(j - 1)) {
+                if (shift[j] == 0) {
+                    shift[j] = j - i;
+                }
+                j = border[j];
+            }
+            i--;
+            j--;
+            border[i] = j;
+        }
+
+        // Case 2: only a part of the matched suffix occurs, as a prefix of the pattern
+        j = border[0];
+        for (i = 0; i <= m; i++) {
+            if (shift[i] == 0) {
+                shift[i] = j;
+            }
+            if (i == j) {
+                j = border[j];
+            }
+        }
+        return shift;
+    }
+
+    /**
+     * Immutable Boyer-Moore searcher holding the pattern and both shift tables
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final CharIntMap badChar;
+        private final int[] goodSuffix;
+
+        Compiled(String pattern) {
+            this.pattern = pattern;
+            this.badChar = preprocessBadChar(pattern);
+            this.goodSuffix = preprocessGoodSuffix(pattern);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Runs the right-to-left scan, shifting by the larger of the two rules
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            int period = goodSuffix[0];
+            // Galil rule: pattern[0..known) is already known to match the current alignment
+            int known = 0;
+            int shift = start;
+            while (shift <= (n - m)) {
+                // Start matching from the end of the pattern, stopping at the known prefix
+                int j = m - 1;
+                while (j >= known) {
+                    comparisons++;
+                    if (pattern.charAt(j) != text.charAt(shift + j)) {
+                        break;
+                    }
+                    j--;
+                }
+
+                if (j < known) {
+                    sink.accept(shift);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+                    // Move by the period; the overlap with this match need not be compared again
+                    shift += period;
+                    known = m - period;
+                } else {
+                    int badCharShift = j - badChar.get(text.charAt(shift + j));
+                    shift += Math.max(goodSuffix[j + 1], badCharShift);
+                    known = 0;
+                }
+            }
+            return comparisons;
+        }
+    }
+}
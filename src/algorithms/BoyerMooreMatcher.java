@@ -1,130 +1,231 @@
 /* 343 Project Program */
 
 package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
 import src.StringMatcher;
-import java.util.ArrayList;
+import src.utils.CaseFolding;
+import src.utils.CharIntMap;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
 
 /**
- * Implements the Boyer-Moore string matching algorithm
+ * Implements the Boyer-Moore string matching algorithm.
+ * The bad character table covers the full UTF-16 alphabet, so text in any
+ * script gets the same skip distances as ASCII text.
  * @author Linda Miao
  * @version 1.0
  */
 public class BoyerMooreMatcher implements StringMatcher {
     private long comparisons;
-    // Size of the alphabet (extended ASCII)
-    private static final int ALPHABET_SIZE = 256;
+    private final CaseFolding caseFolding;
+
+    /**
+     * Creates a matcher comparing characters exactly
+     */
+    public BoyerMooreMatcher() {
+        this(CaseFolding.NONE);
+    }
+
+    /**
+     * Creates a matcher that compares folded characters; the bad character table
+     * holds the folded pattern and is looked up with folded text characters
+     * @param caseFolding How characters are folded before comparison
+     */
+    public BoyerMooreMatcher(CaseFolding caseFolding) {
+        if (caseFolding == null) {
+            throw new IllegalArgumentException("caseFolding must not be null");
+        }
+        this.caseFolding = caseFolding;
+    }
 
     @Override
     public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
         comparisons = 0;
 
         if (text == null || pattern == null || pattern.length() > text.length()) {
-            return new int[0];
+            return;
         }
 
-        int n = text.length();
-        int m = pattern.length();
-        ArrayList<Integer> matches = new ArrayList<>();
+        comparisons = new Compiled(pattern, caseFolding).scan(text, sink);
+    }
 
-        // Edge case: empty pattern matches at every position
-        if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                matches.add(i);
-            }
-            return listToArray(matches);
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
         }
 
-        // Preprocess: Build the bad character table
-        int[] badChar = preprocessBadChar(pattern);
-
-        // The pattern is aligned with the text at shift
-        int shift = 0;
-        while (shift <= (n - m)) {
-            // Start matching from the end of the pattern
-            int j = m - 1;
-
-            // Keep matching characters as long as they match
-            while (j >= 0) {
-                comparisons++;
-                if (pattern.charAt(j) != text.charAt(shift + j)) {
-                    break;
-                }
-                j--;
-            }
+        Compiled compiled = new Compiled(pattern, caseFolding);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
 
-            // If we matched the entire pattern, record a match
-            if (j < 0) {
-                matches.add(shift);
-                // Move the pattern so the next character in text aligns with the last occurrence
-                // of it in pattern
-                if (shift + m < n) {
-                    char nextChar = text.charAt(shift + m);
-                    // Make sure we don't exceed the array bounds
-                    int badCharIndex = nextChar % ALPHABET_SIZE;
-                    shift += m - badChar[badCharIndex];
-                } else {
-                    shift += 1;
-                }
-            } else {
-                // Character mismatch - use the bad character rule to shift
-                // Get the last occurrence of the mismatched character in pattern
-                char mismatchChar = text.charAt(shift + j);
-                // Make sure we don't exceed the array bounds
-                int badCharIndex = mismatchChar % ALPHABET_SIZE;
-                int badCharShift = j - badChar[badCharIndex];
-
-                // Ensure we move at least one position
-                shift += Math.max(1, badCharShift);
-            }
+    /**
+     * Builds the bad character table once; the returned searcher reuses it for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe Boyer-Moore searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
         }
-
-        return listToArray(matches);
+        return new Compiled(pattern, caseFolding);
     }
 
     /**
      * Preprocess the pattern for the bad character heuristic.
-     * For each character c in the alphabet, badChar[c] contains the rightmost
+     * For each character c, badChar.get(c) contains the rightmost
      * position of c in the pattern, or -1 if c does not occur in the pattern.
+     * Characters are stored exactly, never folded into a smaller alphabet.
      *
      * @param pattern The pattern to preprocess
      * @return The bad character table
      */
-    private int[] preprocessBadChar(String pattern) {
+    private static CharIntMap preprocessBadChar(String pattern) {
         int m = pattern.length();
-        int[] badChar = new int[ALPHABET_SIZE];
-
-        // Initialize all entries to -1 (character not found in pattern)
-        for (int i = 0; i < ALPHABET_SIZE; i++) {
-            badChar[i] = -1;
-        }
+        // Characters not found in pattern map to -1
+        CharIntMap badChar = new CharIntMap(-1);
 
         // Fill the actual positions
         for (int i = 0; i < m; i++) {
-            char c = pattern.charAt(i);
-            // Make sure we don't exceed the array bounds
-            int index = c % ALPHABET_SIZE;
-            badChar[index] = i;
+            badChar.put(pattern.charAt(i), i);
         }
 
         return badChar;
     }
 
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
     /**
-     * Converts ArrayList of integers to int array
-     *
-     * @param list ArrayList to convert
-     * @return int array with the same elements
+     * @return How this matcher folds characters before comparing them
      */
-    private int[] listToArray(ArrayList<Integer> list) {
-        int[] result = new int[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            result[i] = list.get(i);
-        }
-        return result;
+    @Override
+    public CaseFolding getCaseFolding() {
+        return caseFolding;
     }
 
-    @Override
-    public long getComparisons() {
-        return comparisons;
+    /**
+     * Immutable Boyer-Moore searcher holding the folded pattern and its bad character table
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final String folded;
+        private final CaseFolding caseFolding;
+        private final CharIntMap badChar;
+
+        Compiled(String pattern, CaseFolding caseFolding) {
+            this.pattern = pattern;
+            this.folded = caseFolding.fold(pattern);
+            this.caseFolding = caseFolding;
+            this.badChar = preprocessBadChar(folded);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Runs the right-to-left Boyer-Moore scan using the bad character table
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            // The pattern is aligned with the text at shift
+            int shift = start;
+            while (shift <= (n - m)) {
+                // Start matching from the end of the pattern
+                int j = m - 1;
+
+                // Keep matching characters as long as they match
+                while (j >= 0) {
+                    comparisons++;
+                    if (folded.charAt(j) != caseFolding.fold(text.charAt(shift + j))) {
+                        break;
+                    }
+                    j--;
+                }
+
+                // If we matched the entire pattern, record a match
+                if (j < 0) {
+                    sink.accept(shift);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+                    // Move the pattern so the next character in text aligns with the last occurrence
+                    // of it in pattern
+                    if (shift + m < n) {
+                        char nextChar = caseFolding.fold(text.charAt(shift + m));
+                        shift += m - badChar.get(nextChar);
+                    } else {
+                        shift += 1;
+                    }
+                } else {
+                    // Character mismatch - use the bad character rule to shift
+                    // Get the last occurrence of the mismatched character in pattern
+                    char mismatchChar = caseFolding.fold(text.charAt(shift + j));
+                    int badCharShift = j - badChar.get(mismatchChar);
+
+                    // Ensure we move at least one position
+                    shift += Math.max(1, badCharShift);
+                }
+            }
+            return comparisons;
+        }
     }
 }
@@ -0,0 +1,74 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.ByteMatcher;
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements the Boyer-Moore string matching algorithm (bad character rule) over bytes.
+ * With a byte alphabet the 256-entry table is exact, so no characters alias.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class ByteBoyerMooreMatcher implements ByteMatcher {
+    // Size of the alphabet (one byte)
+    private static final int ALPHABET_SIZE = 256;
+
+    @Override
+    public void findMatches(ByteBuffer text, byte[] pattern, IntConsumer sink) {
+        if (text == null || pattern == null || pattern.length > text.remaining()) {
+            return;
+        }
+
+        int base = text.position();
+        int n = text.remaining();
+        int m = pattern.length;
+
+        // Edge case: empty pattern matches at every position
+        if (m == 0) {
+            for (int i = 0; i <= n; i++) {
+                sink.accept(i);
+            }
+            return;
+        }
+
+        int[] badChar = preprocessBadChar(pattern);
+
+        // The pattern is aligned with the text at shift
+        int shift = 0;
+        while (shift <= (n - m)) {
+            // Start matching from the end of the pattern
+            int j = m - 1;
+            while (j >= 0 && pattern[j] == text.get(base + shift + j)) {
+                j--;
+            }
+
+            if (j < 0) {
+                sink.accept(shift);
+                // Align the byte after the match with its last occurrence in the pattern
+                shift += (shift + m < n) ? m - badChar[text.get(base + shift + m) & 0xFF] : 1;
+            } else {
+                // Bad character rule, moving at least one position
+                shift += Math.max(1, j - badChar[text.get(base + shift + j) & 0xFF]);
+            }
+        }
+    }
+
+    /**
+     * For each byte value b, badChar[b] is the rightmost position of b in the pattern, or -1
+     *
+     * @param pattern The pattern to preprocess
+     * @return The bad character table
+     */
+    private static int[] preprocessBadChar(byte[] pattern) {
+        int[] badChar = new int[ALPHABET_SIZE];
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            badChar[i] = -1;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            badChar[pattern[i] & 0xFF] = i;
+        }
+        return badChar;
+    }
+}
@@ -0,0 +1,78 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.ByteMatcher;
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements the Knuth-Morris-Pratt string matching algorithm over bytes.
+ * Every byte of the text is read exactly once and in order, which suits
+ * memory-mapped files that are paged in sequentially.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class ByteKMPMatcher implements ByteMatcher {
+
+    @Override
+    public void findMatches(ByteBuffer text, byte[] pattern, IntConsumer sink) {
+        if (text == null || pattern == null || pattern.length > text.remaining()) {
+            return;
+        }
+
+        int base = text.position();
+        int n = text.remaining();
+        int m = pattern.length;
+
+        // Edge case: empty pattern matches at every position
+        if (m == 0) {
+            for (int i = 0; i <= n; i++) {
+                sink.accept(i);
+            }
+            return;
+        }
+
+        int[] lps = computeLPSArray(pattern);
+
+        int j = 0; // index for pattern
+        for (int i = 0; i < n; i++) {
+            byte b = text.get(base + i);
+
+            // Fall back through the LPS array until the next byte can extend the match
+            while (j > 0 && pattern[j] != b) {
+                j = lps[j - 1];
+            }
+            if (pattern[j] == b) {
+                j++;
+            }
+
+            if (j == m) {
+                sink.accept(i - m + 1);
+                j = lps[j - 1];
+            }
+        }
+    }
+
+    /**
+     * Computes the Longest Proper Prefix which is also Suffix array for a byte pattern
+     *
+     * @param pattern The non-empty pattern to preprocess
+     * @return The LPS array
+     */
+    static int[] computeLPSArray(byte[] pattern) {
+        int m = pattern.length;
+        int[] lps = new int[m];
+        int len = 0;
+        int i = 1;
+        while (i < m) {
+            if (pattern[i] == pattern[len]) {
+                lps[i++] = ++len;
+            } else if (len != 0) {
+                len = lps[len - 1];
+            } else {
+                lps[i++] = 0;
+            }
+        }
+        return lps;
+    }
+}
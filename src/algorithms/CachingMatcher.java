@@ -0,0 +1,276 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.CaseFolding;
+import src.utils.LruCache;
+import src.utils.MatchIterator;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Wraps another StringMatcher so that repeated queries skip work.
+ * Compiled patterns are kept in an LRU cache keyed by (algorithm, pattern),
+ * so KMP's failure table or Boyer-Moore's shift tables are built once per hot
+ * pattern instead of once per call. An optional second cache keyed by
+ * (text, pattern, case folding) keeps the match offsets themselves, so a
+ * repeated query returns without scanning. Both caches may be shared by several
+ * CachingMatchers, for example one per algorithm of a server.
+ *
+ * The algorithm of a key is the wrapped matcher instance. Texts in result keys
+ * are compared by identity first and by content otherwise; their hash is
+ * computed once per String instance, so reusing the same text object is cheapest.
+ * A result cache holds strong references to the texts of its entries.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class CachingMatcher implements StringMatcher {
+    private final StringMatcher delegate;
+    private final LruCache<PatternKey, CompiledPattern> compiledPatterns;
+    private final LruCache<ResultKey, int[]> results;
+    private long comparisons;
+
+    /**
+     * Caches compiled patterns only, in a cache of its own
+     * @param delegate The algorithm that compiles and searches
+     * @param maxPatterns Number of compiled patterns kept
+     */
+    public CachingMatcher(StringMatcher delegate, int maxPatterns) {
+        this(delegate, compiledPatternCache(maxPatterns), null);
+    }
+
+    /**
+     * @param delegate The algorithm that compiles and searches
+     * @param compiledPatterns Cache of compiled patterns, possibly shared
+     * @param results Cache of match offsets, possibly shared, or null to always search
+     */
+    public CachingMatcher(StringMatcher delegate, LruCache<PatternKey, CompiledPattern> compiledPatterns,
+                          LruCache<ResultKey, int[]> results) {
+        if (delegate == null || compiledPatterns == null) {
+            throw new IllegalArgumentException("delegate and compiledPatterns must not be null");
+        }
+        this.delegate = delegate;
+        this.compiledPatterns = compiledPatterns;
+        this.results = results;
+    }
+
+    /**
+     * @param maxPatterns Number of compiled patterns kept
+     * @return A cache for compiled patterns
+     */
+    public static LruCache<PatternKey, CompiledPattern> compiledPatternCache(int maxPatterns) {
+        return new LruCache<>(maxPatterns);
+    }
+
+    /**
+     * @param maxOffsets Total number of match offsets kept, over all entries
+     * @return A cache for match results, weighted by their number of offsets
+     */
+    public static LruCache<ResultKey, int[]> resultCache(long maxOffsets) {
+        return new LruCache<>(maxOffsets, matches -> matches.length + 1);
+    }
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchResult result = cachedSearch(text, pattern);
+        comparisons = result.getComparisons();
+        return results == null ? result.getMatches() : result.getMatches().clone();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        MatchResult result = cachedSearch(text, pattern);
+        comparisons = result.getComparisons();
+        for (int position : result.getMatches()) {
+            sink.accept(position);
+        }
+    }
+
+    /**
+     * Returns the compiled pattern from the cache, compiling it with the wrapped
+     * matcher on a miss
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return compiledPatterns.computeIfAbsent(new PatternKey(delegate, pattern), key -> delegate.compile(pattern));
+    }
+
+    /**
+     * A result taken from the cache reports no comparisons. The shared
+     * comparison counter is not touched, so this is safe to call from many threads.
+     */
+    @Override
+    public MatchResult search(String text, String pattern) {
+        MatchResult result = cachedSearch(text, pattern);
+        if (results == null) {
+            return result;
+        }
+        return new MatchResult(result.getMatches().clone(), result.getComparisons(), -1, result.getCollisions());
+    }
+
+    /**
+     * Answered from the result cache when the matches are cached, and by an
+     * early-exit scan otherwise
+     */
+    @Override
+    public int indexOf(String text, String pattern, int from) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return -1;
+        }
+        ResultKey key = results == null ? null : new ResultKey(text, pattern, delegate.getCaseFolding());
+        int[] matches = key == null ? null : results.get(key);
+        if (matches == null) {
+            return compile(pattern).indexOf(text, from);
+        }
+        int index = Arrays.binarySearch(matches, Math.max(from, 0));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < matches.length ? matches[index] : -1;
+    }
+
+    /**
+     * With a result cache, a miss stores all the offsets so the next count is free
+     */
+    @Override
+    public int count(String text, String pattern) {
+        if (results == null) {
+            return StringMatcher.super.count(text, pattern);
+        }
+        return cachedSearch(text, pattern).getMatchCount();
+    }
+
+    /**
+     * With a result cache, a miss runs the whole search before the first offset is
+     * returned, so that later iterations are answered from the cache
+     */
+    @Override
+    public MatchIterator iterator(String text, String pattern) {
+        if (results == null) {
+            return StringMatcher.super.iterator(text, pattern);
+        }
+        return MatchIterator.of(cachedSearch(text, pattern).getMatches());
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return The folding of the wrapped matcher
+     */
+    @Override
+    public CaseFolding getCaseFolding() {
+        return delegate.getCaseFolding();
+    }
+
+    /**
+     * @return The cache of compiled patterns
+     */
+    public LruCache<PatternKey, CompiledPattern> getCompiledPatterns() {
+        return compiledPatterns;
+    }
+
+    /**
+     * @return The cache of match offsets, or null if results are not cached
+     */
+    public LruCache<ResultKey, int[]> getResults() {
+        return results;
+    }
+
+    /**
+     * Matches of pattern in text with the comparisons of this call, kept per call
+     * rather than in the matcher. With a result cache the offsets array is shared
+     * with the cache and must not be modified.
+     */
+    private MatchResult cachedSearch(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+        ResultKey key = results == null ? null : new ResultKey(text, pattern, delegate.getCaseFolding());
+        int[] matches = key == null ? null : results.get(key);
+        if (matches != null) {
+            return new MatchResult(matches, 0);
+        }
+        MatchResult result = compile(pattern).search(text);
+        if (key != null) {
+            results.put(key, result.getMatches());
+        }
+        return result;
+    }
+
+    /**
+     * Key of a compiled pattern: the matcher that compiled it and the pattern
+     */
+    public static final class PatternKey {
+        private final StringMatcher algorithm;
+        private final String pattern;
+
+        PatternKey(StringMatcher algorithm, String pattern) {
+            this.algorithm = algorithm;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PatternKey)) {
+                return false;
+            }
+            PatternKey key = (PatternKey) other;
+            return algorithm == key.algorithm && pattern.equals(key.pattern);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(algorithm) + pattern.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return algorithm.getClass().getSimpleName() + ":" + pattern;
+        }
+    }
+
+    /**
+     * Key of a result: the text, the pattern and the case folding of the matcher.
+     * Matchers that fold alike find the same matches, so results are shared
+     * between algorithms, but never between exact and case-insensitive search.
+     */
+    public static final class ResultKey {
+        private final String text;
+        private final String pattern;
+        private final CaseFolding caseFolding;
+
+        ResultKey(String text, String pattern, CaseFolding caseFolding) {
+            this.text = text;
+            this.pattern = pattern;
+            this.caseFolding = caseFolding;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ResultKey)) {
+                return false;
+            }
+            ResultKey key = (ResultKey) other;
+            return caseFolding == key.caseFolding && pattern.equals(key.pattern)
+                    && (text == key.text || text.equals(key.text));
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * text.hashCode() + pattern.hashCode()) * 31 + caseFolding.ordinal();
+        }
+
+        @Override
+        public String toString() {
+            return text.length() + " characters:" + pattern + ":" + caseFolding;
+        }
+    }
+}
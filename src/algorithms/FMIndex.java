@@ -0,0 +1,431 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.MatchResult;
+import src.TextIndex;
+import src.utils.CharIntMap;
+import src.utils.IndexFile;
+import src.utils.RankBitVector;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compressed full-text index (FM-index) over a fixed text.
+ * The Burrows-Wheeler transform of the text is stored in a wavelet matrix of
+ * rank bit vectors, one level per bit of the text's alphabet size, and every
+ * sampleRate-th text position keeps its suffix array entry. count() runs a
+ * backward search of 2m rank queries regardless of text length; locating an
+ * occurrence walks the LF mapping to the nearest sampled position, at most
+ * sampleRate - 1 steps. For ASCII text this takes about one byte per character
+ * instead of the eight of SuffixArrayIndex, and the text itself is not kept.
+ *
+ * An index can be saved to an IndexFile and opened again with load(), which
+ * memory maps the file and reads the structures in place through LongBuffer
+ * and IntBuffer views instead of rebuilding them. Comparisons are counted as
+ * rank queries and LF steps on the transform.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class FMIndex implements TextIndex {
+    // Text positions per suffix array sample
+    public static final int DEFAULT_SAMPLE_RATE = 32;
+
+    private static final int KIND = 0x464D4958; // "FMIX"
+    private static final int KIND_VERSION = 2;
+
+    // IndexFile section ids; level l of the wavelet matrix uses LEVEL_WORDS + 2l and LEVEL_RANKS + 2l
+    private static final int PARAMETERS = 0;
+    private static final int ALPHABET = 1;
+    private static final int COUNTS = 2;
+    private static final int ZEROS = 3;
+    private static final int SAMPLED_WORDS = 4;
+    private static final int SAMPLED_RANKS = 5;
+    private static final int SAMPLES = 6;
+    private static final int LEVEL_WORDS = 16;
+    private static final int LEVEL_RANKS = 17;
+
+    private final int length;
+    private final int sampleRate;
+    // Distinct characters of the text in increasing order; symbol s + 1 stands for alphabet[s]
+    private final char[] alphabet;
+    private final CharIntMap symbols;
+    // counts.get(c) is the number of transform symbols smaller than c
+    private final IntBuffer counts;
+    private final WaveletMatrix transform;
+    // Marks the transform rows whose suffix array entry is sampled
+    private final RankBitVector sampled;
+    private final IntBuffer samples;
+
+    /**
+     * Builds the index with the default sample rate
+     * @param text The text to index
+     */
+    public FMIndex(String text) {
+        this(text, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param text The text to index
+     * @param sampleRate Every sampleRate-th text position is sampled; larger is smaller but slower to locate
+     */
+    public FMIndex(String text, int sampleRate) {
+        if (text == null) {
+            throw new IllegalArgumentException("text must not be null");
+        }
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        }
+        int n = text.length();
+        this.length = n;
+        this.sampleRate = sampleRate;
+
+        // Alphabet and symbol numbering; 0 is the sentinel ending the text
+        boolean[] present = new boolean[Character.MAX_VALUE + 1];
+        int sigma = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (!present[c]) {
+                present[c] = true;
+                sigma++;
+            }
+        }
+        this.alphabet = new char[sigma];
+        for (int c = 0, s = 0; c < present.length; c++) {
+            if (present[c]) {
+                alphabet[s++] = (char) c;
+            }
+        }
+        this.symbols = symbolTable(alphabet);
+
+        // Suffix array of text + sentinel: the sentinel suffix sorts first
+        int[] suffixArray = SuffixArrayIndex.buildSuffixArray(text);
+        int rows = n + 1;
+        int[] bwt = new int[rows];
+        int[] symbolCounts = new int[sigma + 2];
+        long[] sampledBits = new long[RankBitVector.wordCount(rows)];
+        int[] sampleValues = new int[n / sampleRate + 1];
+        int sampleCount = 0;
+        for (int row = 0; row < rows; row++) {
+            int position = row == 0 ? n : suffixArray[row - 1];
+            bwt[row] = position == 0 ? 0 : symbols.get(text.charAt(position - 1));
+            symbolCounts[bwt[row] + 1]++;
+            if (position % sampleRate == 0) {
+                sampledBits[row >>> 6] |= 1L << row;
+                sampleValues[sampleCount++] = position;
+            }
+        }
+        for (int c = 1; c < symbolCounts.length; c++) {
+            symbolCounts[c] += symbolCounts[c - 1];
+        }
+
+        this.counts = IntBuffer.wrap(symbolCounts);
+        this.transform = WaveletMatrix.build(bwt, levelsFor(sigma), sigma + 1);
+        this.sampled = new RankBitVector(sampledBits, rows);
+        this.samples = IntBuffer.wrap(Arrays.copyOf(sampleValues, sampleCount));
+    }
+
+    private FMIndex(int length, int sampleRate, char[] alphabet, IntBuffer counts, WaveletMatrix transform,
+                    RankBitVector sampled, IntBuffer samples) {
+        this.length = length;
+        this.sampleRate = sampleRate;
+        this.alphabet = alphabet;
+        this.symbols = symbolTable(alphabet);
+        this.counts = counts;
+        this.transform = transform;
+        this.sampled = sampled;
+        this.samples = samples;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int count(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        long[] comparisons = {0};
+        long range = backwardSearch(pattern, comparisons);
+        return (int) (range >>> 32) - (int) range;
+    }
+
+    @Override
+    public MatchResult search(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        long[] comparisons = {0};
+        long range = backwardSearch(pattern, comparisons);
+        int from = (int) range;
+        int to = (int) (range >>> 32);
+
+        int[] matches = new int[to - from];
+        for (int row = from; row < to; row++) {
+            matches[row - from] = locate(row, comparisons);
+        }
+        Arrays.sort(matches);
+        return new MatchResult(matches, comparisons[0]);
+    }
+
+    /**
+     * @return Text positions per suffix array sample
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return Bytes taken by the index structures
+     */
+    public long sizeInBytes() {
+        return 2L * alphabet.length + 4L * counts.capacity() + transform.sizeInBytes()
+                + 8L * RankBitVector.wordCount(sampled.length()) + 4L * RankBitVector.rankCount(sampled.length())
+                + 4L * samples.capacity();
+    }
+
+    /**
+     * Rows of the transform whose suffixes start with pattern
+     * @return The row range [from, to) packed as (to << 32) | from
+     */
+    private long backwardSearch(String pattern, long[] comparisons) {
+        int from = 0;
+        int to = length + 1;
+        for (int j = pattern.length() - 1; j >= 0 && from < to; j--) {
+            int c = symbols.get(pattern.charAt(j));
+            if (c <= 0) {
+                // Character not in the text
+                return 0;
+            }
+            int base = counts.get(c);
+            from = base + transform.rank(c, from);
+            to = base + transform.rank(c, to);
+            comparisons[0] += 2;
+        }
+        return from < to ? ((long) to << 32) | from : 0;
+    }
+
+    /**
+     * Text position of the suffix in row, found by stepping back to a sampled row
+     */
+    private int locate(int row, long[] comparisons) {
+        int steps = 0;
+        while (!sampled.get(row)) {
+            // LF mapping: the row of the suffix starting one position earlier
+            row = transform.lastToFirst(row, counts);
+            comparisons[0]++;
+            steps++;
+        }
+        return samples.get(sampled.rank1(row)) + steps;
+    }
+
+    /**
+     * Writes the index as an IndexFile with one section per structure, so that
+     * load() can map it back without rebuilding anything
+     * @param file The file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        int[] alphabetCodes = new int[alphabet.length];
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabetCodes[i] = alphabet[i];
+        }
+        IndexFile.Writer writer = new IndexFile.Writer(KIND, KIND_VERSION)
+                .putInts(PARAMETERS, length, sampleRate)
+                .putInts(ALPHABET, alphabetCodes)
+                .putInts(COUNTS, counts)
+                .putInts(ZEROS, transform.zeros)
+                .putBitVector(SAMPLED_WORDS, SAMPLED_RANKS, sampled)
+                .putInts(SAMPLES, samples);
+        for (int level = 0; level < transform.levels(); level++) {
+            writer.putBitVector(LEVEL_WORDS + 2 * level, LEVEL_RANKS + 2 * level, transform.bits[level]);
+        }
+        writer.write(file);
+    }
+
+    /**
+     * Opens an index written by save() without verifying section checksums
+     * @param file The index file
+     * @return The mapped index
+     * @throws IOException if the file cannot be read or is not an FM-index file
+     */
+    public static FMIndex load(Path file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * Opens an index written by save() by memory mapping it; nothing is rebuilt
+     * and the structures are read in place from the mapping
+     * @param file The index file
+     * @param verify Whether to check every section's checksum first, which reads the whole file
+     * @return The mapped index
+     * @throws IOException if the file cannot be read, is not an FM-index file or is damaged
+     */
+    public static FMIndex load(Path file, boolean verify) throws IOException {
+        IndexFile index = IndexFile.open(file);
+        index.requireKind(KIND, KIND_VERSION);
+        if (verify) {
+            index.verify();
+        }
+
+        IntBuffer parameters = index.ints(PARAMETERS);
+        int length = parameters.get(0);
+        int sampleRate = parameters.get(1);
+        int rows = length + 1;
+
+        IntBuffer alphabetCodes = index.ints(ALPHABET);
+        char[] alphabet = new char[alphabetCodes.remaining()];
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabet[i] = (char) alphabetCodes.get(i);
+        }
+        int sigma = alphabet.length;
+        IntBuffer counts = index.ints(COUNTS);
+        IntBuffer zeros = index.ints(ZEROS);
+        if (counts.remaining() != sigma + 2 || zeros.remaining() != levelsFor(sigma)) {
+            throw new IOException(file + " does not match its alphabet of " + sigma + " characters");
+        }
+        RankBitVector[] bits = new RankBitVector[zeros.remaining()];
+        for (int level = 0; level < bits.length; level++) {
+            bits[level] = index.bitVector(LEVEL_WORDS + 2 * level, LEVEL_RANKS + 2 * level, rows);
+        }
+        RankBitVector sampled = index.bitVector(SAMPLED_WORDS, SAMPLED_RANKS, rows);
+        IntBuffer samples = index.ints(SAMPLES);
+
+        return new FMIndex(length, sampleRate, alphabet, counts, new WaveletMatrix(bits, zeros, sigma + 1),
+                sampled, samples);
+    }
+
+    private static int levelsFor(int sigma) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(sigma));
+    }
+
+    private static CharIntMap symbolTable(char[] alphabet) {
+        CharIntMap symbols = new CharIntMap(0);
+        for (int s = 0; s < alphabet.length; s++) {
+            symbols.put(alphabet[s], s + 1);
+        }
+        return symbols;
+    }
+
+    /**
+     * Wavelet matrix over the transform: level l holds bit (levels - 1 - l) of every
+     * symbol, in the order left by stably partitioning the previous level by its bit.
+     * After the last level all occurrences of a symbol are contiguous, in their
+     * original order, so the rank of an occurrence is its final position minus the
+     * start of its symbol's block; those block starts are computed once.
+     */
+    private static final class WaveletMatrix {
+        private final RankBitVector[] bits;
+        // zeros.get(l) is the number of 0 bits on level l
+        private final IntBuffer zeros;
+        // blockStart[c] is where symbol c's occurrences begin after the last level
+        private final int[] blockStart;
+
+        WaveletMatrix(RankBitVector[] bits, IntBuffer zeros, int symbolCount) {
+            this.bits = bits;
+            this.zeros = zeros;
+            this.blockStart = new int[symbolCount];
+            for (int c = 0; c < symbolCount; c++) {
+                blockStart[c] = descend(c, 0);
+            }
+        }
+
+        static WaveletMatrix build(int[] symbols, int levels, int symbolCount) {
+            int n = symbols.length;
+            RankBitVector[] bits = new RankBitVector[levels];
+            int[] zeros = new int[levels];
+            int[] current = symbols.clone();
+            int[] next = new int[n];
+
+            for (int level = 0; level < levels; level++) {
+                int shift = levels - 1 - level;
+                long[] words = new long[RankBitVector.wordCount(n)];
+                int zeroCount = 0;
+                for (int i = 0; i < n; i++) {
+                    if (((current[i] >>> shift) & 1) == 0) {
+                        zeroCount++;
+                    } else {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+
+                // Stable partition: symbols with a 0 bit first, then those with a 1 bit
+                int zeroPosition = 0;
+                int onePosition = zeroCount;
+                for (int i = 0; i < n; i++) {
+                    if (((current[i] >>> shift) & 1) == 0) {
+                        next[zeroPosition++] = current[i];
+                    } else {
+                        next[onePosition++] = current[i];
+                    }
+                }
+                int[] swap = current;
+                current = next;
+                next = swap;
+
+                bits[level] = new RankBitVector(words, n);
+                zeros[level] = zeroCount;
+            }
+            return new WaveletMatrix(bits, IntBuffer.wrap(zeros), symbolCount);
+        }
+
+        int levels() {
+            return bits.length;
+        }
+
+        /**
+         * @return Number of occurrences of symbol in positions [0, i)
+         */
+        int rank(int symbol, int i) {
+            return descend(symbol, i) - blockStart[symbol];
+        }
+
+        /**
+         * LF mapping in a single pass: reads the symbol at row while following it
+         * down the levels, then offsets its rank by the symbol's count table entry
+         * @return The row of the suffix starting one text position before row's suffix
+         */
+        int lastToFirst(int row, IntBuffer counts) {
+            int symbol = 0;
+            int i = row;
+            for (int level = 0; level < bits.length; level++) {
+                RankBitVector vector = bits[level];
+                if (vector.get(i)) {
+                    symbol = (symbol << 1) | 1;
+                    i = zeros.get(level) + vector.rank1(i);
+                } else {
+                    symbol <<= 1;
+                    i = vector.rank0(i);
+                }
+            }
+            return counts.get(symbol) + i - blockStart[symbol];
+        }
+
+        /**
+         * Maps position i down the levels along the bits of symbol
+         * @return Position after the last level
+         */
+        private int descend(int symbol, int i) {
+            for (int level = 0; level < bits.length; level++) {
+                RankBitVector vector = bits[level];
+                if (((symbol >>> (bits.length - 1 - level)) & 1) == 0) {
+                    i = vector.rank0(i);
+                } else {
+                    i = zeros.get(level) + vector.rank1(i);
+                }
+            }
+            return i;
+        }
+
+        long sizeInBytes() {
+            long size = 4L * bits.length;
+            for (RankBitVector vector : bits) {
+                size += 8L * RankBitVector.wordCount(vector.length()) + 4L * RankBitVector.rankCount(vector.length());
+            }
+            return size;
+        }
+    }
+}
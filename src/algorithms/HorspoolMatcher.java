@@ -0,0 +1,175 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.CharIntMap;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements the Boyer-Moore-Horspool string matching algorithm.
+ * After every attempt the window moves by the shift of the text character
+ * aligned with the last pattern position, whether the attempt matched or not.
+ * A single table lookup per attempt makes it usually faster than full
+ * Boyer-Moore on natural-language text.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class HorspoolMatcher implements StringMatcher {
+    private long comparisons;
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        comparisons = new Compiled(pattern).scan(text, sink);
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        Compiled compiled = new Compiled(pattern);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
+
+    /**
+     * Builds the shift table once; the returned searcher reuses it for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe Horspool searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(pattern);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Preprocess the pattern for the Horspool shift.
+     * shift.get(c) is the distance from the rightmost occurrence of c in
+     * pattern[0..m-1) to the last pattern position, or m if c does not occur there.
+     *
+     * @param pattern The non-empty pattern to preprocess
+     * @return The shift table
+     */
+    private static CharIntMap preprocessShift(String pattern) {
+        int m = pattern.length();
+        CharIntMap shift = new CharIntMap(m);
+        for (int i = 0; i < m - 1; i++) {
+            shift.put(pattern.charAt(i), m - 1 - i);
+        }
+        return shift;
+    }
+
+    /**
+     * Immutable Horspool searcher holding the pattern and its shift table
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final CharIntMap shift;
+
+        Compiled(String pattern) {
+            this.pattern = pattern;
+            this.shift = pattern.isEmpty() ? null : preprocessShift(pattern);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Compares each window right to left, then shifts by the window's last character
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            int position = start;
+            while (position <= n - m) {
+                int j = m - 1;
+                while (j >= 0) {
+                    comparisons++;
+                    if (pattern.charAt(j) != text.charAt(position + j)) {
+                        break;
+                    }
+                    j--;
+                }
+
+                if (j < 0) {
+                    sink.accept(position);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+                }
+                position += shift.get(text.charAt(position + m - 1));
+            }
+            return comparisons;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.TextIndex;
+import src.utils.MatchIterator;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * StringMatcher view of a TextIndex, so an index can take part in the same
+ * comparisons as the scanning algorithms. Searches in the indexed text are
+ * answered by the index; any other text is scanned with a fallback matcher.
+ * The indexed text is recognised by reference first, then by equality.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class IndexMatcher implements StringMatcher {
+    private final TextIndex index;
+    private final String indexedText;
+    private final StringMatcher fallback;
+    private long comparisons;
+
+    /**
+     * Scans texts other than the indexed one with Horspool
+     * @param index The index built over indexedText
+     * @param indexedText The text the index was built over
+     */
+    public IndexMatcher(TextIndex index, String indexedText) {
+        this(index, indexedText, new HorspoolMatcher());
+    }
+
+    /**
+     * @param index The index built over indexedText
+     * @param indexedText The text the index was built over
+     * @param fallback The algorithm used for any other text
+     */
+    public IndexMatcher(TextIndex index, String indexedText, StringMatcher fallback) {
+        if (index == null || indexedText == null || fallback == null) {
+            throw new IllegalArgumentException("index, indexedText and fallback must not be null");
+        }
+        if (index.length() != indexedText.length()) {
+            throw new IllegalArgumentException("index length " + index.length()
+                    + " does not match text length " + indexedText.length());
+        }
+        this.index = index;
+        this.indexedText = indexedText;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return new int[0];
+        }
+        if (!isIndexed(text)) {
+            int[] matches = fallback.findMatches(text, pattern);
+            comparisons = fallback.getComparisons();
+            return matches;
+        }
+
+        MatchResult result = index.search(pattern);
+        comparisons = result.getComparisons();
+        return result.getMatches();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        for (int position : findMatches(text, pattern)) {
+            sink.accept(position);
+        }
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+        return isIndexed(text) ? index.search(pattern) : fallback.search(text, pattern);
+    }
+
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(fallback.compile(pattern));
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return The index answering searches in the indexed text
+     */
+    public TextIndex getIndex() {
+        return index;
+    }
+
+    private boolean isIndexed(String text) {
+        return text == indexedText || (text.length() == indexedText.length() && text.equals(indexedText));
+    }
+
+    /**
+     * Queries the index for the indexed text and the compiled fallback for any other
+     */
+    private final class Compiled implements CompiledPattern {
+        private final CompiledPattern fallbackPattern;
+
+        Compiled(CompiledPattern fallbackPattern) {
+            this.fallbackPattern = fallbackPattern;
+        }
+
+        @Override
+        public String pattern() {
+            return fallbackPattern.pattern();
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            for (int position : search(text).getMatches()) {
+                sink.accept(position);
+            }
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            if (text == null || pattern().length() > text.length()) {
+                return MatchResult.empty();
+            }
+            return isIndexed(text) ? index.search(pattern()) : fallbackPattern.search(text);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern().length() > text.length()) {
+                return;
+            }
+            if (!isIndexed(text)) {
+                fallbackPattern.findMatches(text, from, limit, sink);
+                return;
+            }
+            // Locating is not incremental; skip to from in the sorted occurrences
+            int[] matches = index.locate(pattern());
+            int first = Arrays.binarySearch(matches, Math.max(from, 0));
+            if (first < 0) {
+                first = -first - 1;
+            }
+            for (int i = first; i < matches.length && i - first < limit; i++) {
+                sink.accept(matches[i]);
+            }
+        }
+
+        /**
+         * The index locates all occurrences at once, so the indexed text is
+         * iterated from that array instead of being searched again per batch
+         */
+        @Override
+        public MatchIterator iterator(String text) {
+            if (text == null || pattern().length() > text.length()) {
+                return MatchIterator.empty();
+            }
+            return isIndexed(text) ? MatchIterator.of(index.locate(pattern())) : fallbackPattern.iterator(text);
+        }
+
+        /**
+         * Answered from the index without locating any occurrence
+         */
+        @Override
+        public int count(String text) {
+            if (text == null || pattern().length() > text.length()) {
+                return 0;
+            }
+            return isIndexed(text) ? index.count(pattern()) : fallbackPattern.count(text);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 //package src;
 package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
 import src.StringMatcher;
-import java.util.ArrayList;
+import src.utils.CaseFolding;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
 
 /**
  * Implements the naive string matching algorithm
@@ -10,66 +14,69 @@ import java.util.ArrayList;
  */
 public class KMPMatcher implements StringMatcher {
     private long comparisons;
+    private final CaseFolding caseFolding;
+
+    /**
+     * Creates a matcher comparing characters exactly
+     */
+    public KMPMatcher() {
+        this(CaseFolding.NONE);
+    }
+
+    /**
+     * Creates a matcher that compares folded characters; the LPS array is built
+     * over the folded pattern and every text character is folded as it is read
+     * @param caseFolding How characters are folded before comparison
+     */
+    public KMPMatcher(CaseFolding caseFolding) {
+        if (caseFolding == null) {
+            throw new IllegalArgumentException("caseFolding must not be null");
+        }
+        this.caseFolding = caseFolding;
+    }
 
     @Override
     public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
         comparisons = 0; // Reset counter
 
         if (text == null || pattern == null || pattern.length() > text.length()) {
-            return new int[0];
+            return;
         }
 
-        int n = text.length();
-        int m = pattern.length();
-
-        // Using ArrayList to store matches since we don't know how many there will be
-        ArrayList<Integer> matches = new ArrayList<>();
+        Compiled compiled = new Compiled(pattern, caseFolding);
+        comparisons = compiled.preprocessComparisons + compiled.scan(text, sink);
+    }
 
-        // Edge case: empty pattern matches at every position
-        if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                matches.add(i);
-            }
-            return listToArray(matches);
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
         }
 
-        // Preprocess: Compute the LPS (Longest Prefix Suffix) array
-        int[] lps = computeLPSArray(pattern);
-
-        // KMP search algorithm
-        int i = 0; // index for text
-        int j = 0; // index for pattern
-
-        while (i < n) {
-            // Compare current characters in pattern and text
-            comparisons++;
-
-            if (pattern.charAt(j) == text.charAt(i)) {
-                i++;
-                j++;
-            }
-
-            // If we've reached the end of the pattern, we found a match
-            if (j == m) {
-                // Found a match at index (i - j)
-                matches.add(i - j);
+        Compiled compiled = new Compiled(pattern, caseFolding);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.preprocessComparisons + compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
 
-                // Look for the next match by using the LPS values
-                j = lps[j - 1];
-            }
-            // If there's a mismatch after j matches
-            else if (i < n && pattern.charAt(j) != text.charAt(i)) {
-                if (j != 0) {
-                    // Use the LPS array to skip already matched characters
-                    j = lps[j - 1];
-                } else {
-                    // If we are at beginning of pattern, simply move to next text character
-                    i++;
-                }
-            }
+    /**
+     * Computes the LPS array once; the returned searcher reuses it for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe KMP searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
         }
-
-        return listToArray(matches);
+        return new Compiled(pattern, caseFolding);
     }
 
     /**
@@ -77,11 +84,16 @@ public class KMPMatcher implements StringMatcher {
      * This is the key preprocessing step in KMP algorithm.
      *
      * @param pattern The pattern for which to compute the LPS array
-     * @return The LPS array where lps[i] = length of longest proper prefix which is also suffix for pattern[0...i]
+     * @param lps Array of pattern.length() entries to fill, where lps[i] = length of longest
+     *            proper prefix which is also suffix for pattern[0...i]
+     * @return Number of character comparisons performed
      */
-    private int[] computeLPSArray(String pattern) {
+    static long computeLPSArray(String pattern, int[] lps) {
         int m = pattern.length();
-        int[] lps = new int[m];
+        long comparisons = 0;
+        if (m == 0) {
+            return comparisons;
+        }
 
         // lps[0] is always 0
         lps[0] = 0;
@@ -111,25 +123,131 @@ public class KMPMatcher implements StringMatcher {
             }
         }
 
-        return lps;
+        return comparisons;
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
     }
 
     /**
-     * Converts ArrayList of integers to int array
-     *
-     * @param list ArrayList to convert
-     * @return int array with the same elements
+     * @return How this matcher folds characters before comparing them
      */
-    private int[] listToArray(ArrayList<Integer> list) {
-        int[] result = new int[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            result[i] = list.get(i);
-        }
-        return result;
+    @Override
+    public CaseFolding getCaseFolding() {
+        return caseFolding;
     }
 
-    @Override
-    public long getComparisons() {
-        return comparisons;
+    /**
+     * Immutable KMP searcher holding the folded pattern and its LPS array
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final String folded;
+        private final CaseFolding caseFolding;
+        private final int[] lps;
+        // Comparisons spent building the LPS array, charged to one-shot searches
+        private final long preprocessComparisons;
+
+        Compiled(String pattern, CaseFolding caseFolding) {
+            this.pattern = pattern;
+            this.folded = caseFolding.fold(pattern);
+            this.caseFolding = caseFolding;
+            this.lps = new int[pattern.length()];
+            this.preprocessComparisons = computeLPSArray(folded, lps);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Runs the KMP scan over text using the precomputed LPS array
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            // KMP search algorithm
+            int i = start; // index for text
+            int j = 0; // index for pattern
+
+            while (i < n) {
+                // Compare current characters in pattern and text
+                comparisons++;
+
+                // Text characters are folded as they are read (a no-op for exact matching)
+                if (folded.charAt(j) == caseFolding.fold(text.charAt(i))) {
+                    i++;
+                    j++;
+                }
+
+                // If we've reached the end of the pattern, we found a match
+                if (j == m) {
+                    // Found a match at index (i - j)
+                    sink.accept(i - j);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+
+                    // Look for the next match by using the LPS values
+                    j = lps[j - 1];
+                }
+                // If there's a mismatch after j matches
+                else if (i < n && folded.charAt(j) != caseFolding.fold(text.charAt(i))) {
+                    if (j != 0) {
+                        // Use the LPS array to skip already matched characters
+                        j = lps[j - 1];
+                    } else {
+                        // If we are at beginning of pattern, simply move to next text character
+                        i++;
+                    }
+                }
+            }
+            return comparisons;
+        }
     }
 }
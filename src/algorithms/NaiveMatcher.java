@@ -1,7 +1,10 @@
 /*343 project program */
 package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
 import src.StringMatcher;
-import java.util.ArrayList;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
 
 /**
  * Implements the naive string matching algorithm
@@ -19,59 +22,52 @@ public class NaiveMatcher implements StringMatcher {
      */
     @Override
     public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * Finds all occurrences of pattern in text using naive string matching,
+     * reporting each starting index to sink
+     * @param text The text to search within
+     * @param pattern The pattern to search for
+     * @param sink Receives the starting index of every match
+     */
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
         comparisons = 0; // Reset counter
 
         if (text == null || pattern == null || pattern.length() > text.length()) {
-            return new int[0];
+            return;
         }
 
-        int n = text.length();
-        int m = pattern.length();
-
-        // Using ArrayList to store matches since we don't know how many there will be
-        ArrayList<Integer> matches = new ArrayList<>();
-
-        // Edge case: empty pattern matches at every position
-        if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                matches.add(i);
-            }
-            return listToArray(matches);
-        }
-
-        // Main loop: slide the pattern over the text
-        for (int i = 0; i <= n - m; i++) {
-            boolean isMatch = true;
-
-            // Inner loop: compare pattern chars to text window
-            for (int j = 0; j < m; j++) {
-                comparisons++; // Count this comparison
-
-                if (text.charAt(i + j) != pattern.charAt(j)) {
-                    isMatch = false;
-                    break;
-                }
-            }
+        comparisons = new Compiled(pattern).scan(text, sink);
+    }
 
-            if (isMatch) {
-                matches.add(i);
-            }
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
         }
 
-        return listToArray(matches);
+        Compiled compiled = new Compiled(pattern);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
     }
 
     /**
-     * Converts ArrayList of integers to int array
-     * @param list ArrayList to convert
-     * @return int array with the same elements
+     * The naive algorithm has no preprocessing, so the compiled form only holds the pattern
+     * @param pattern The pattern to search for
+     * @return A reusable, thread-safe searcher for pattern
      */
-    private int[] listToArray(ArrayList<Integer> list) {
-        int[] result = new int[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            result[i] = list.get(i);
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
         }
-        return result;
+        return new Compiled(pattern);
     }
 
     /**
@@ -82,4 +78,92 @@ public class NaiveMatcher implements StringMatcher {
     public long getComparisons() {
         return comparisons;
     }
-}
\ No newline at end of file
+
+    /**
+     * Immutable naive searcher for a single pattern
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+
+        Compiled(String pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Slides the pattern over the text one position at a time
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            // Main loop: slide the pattern over the text
+            for (int i = start; i <= n - m; i++) {
+                boolean isMatch = true;
+
+                // Inner loop: compare pattern chars to text window
+                for (int j = 0; j < m; j++) {
+                    comparisons++; // Count this comparison
+
+                    if (text.charAt(i + j) != pattern.charAt(j)) {
+                        isMatch = false;
+                        break;
+                    }
+                }
+
+                if (isMatch) {
+                    sink.accept(i);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+                }
+            }
+            return comparisons;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.CaseFolding;
+import src.utils.ChunkedSearch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs any other StringMatcher in parallel over large texts.
+ * The possible match start positions are split into chunks of chunkSize; each
+ * chunk is searched on a ForkJoinPool together with the (m-1) characters that
+ * follow it, so matches that cross a chunk boundary are found exactly once, by
+ * the chunk they start in. Chunk results are concatenated in order, which keeps
+ * the offsets sorted and free of duplicates. Texts shorter than the sequential
+ * threshold are passed straight to the wrapped matcher.
+ *
+ * The chunking is done by ChunkedSearch, which copies each chunk out of the
+ * text with substring; see there for the memory this costs.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class ParallelMatcher implements StringMatcher {
+    // Match start positions searched by one task
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    // Texts shorter than this are searched on the calling thread
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 2 * DEFAULT_CHUNK_SIZE;
+
+    private final StringMatcher delegate;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int sequentialThreshold;
+    private long comparisons;
+
+    /**
+     * Wraps delegate using the common ForkJoinPool and the default chunk size and threshold
+     * @param delegate The algorithm run on every chunk
+     */
+    public ParallelMatcher(StringMatcher delegate) {
+        this(delegate, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * @param delegate The algorithm run on every chunk
+     * @param pool The pool the chunks are run on
+     * @param chunkSize Number of match start positions per task
+     * @param sequentialThreshold Texts shorter than this are not split
+     */
+    public ParallelMatcher(StringMatcher delegate, ForkJoinPool pool, int chunkSize, int sequentialThreshold) {
+        if (delegate == null || pool == null) {
+            throw new IllegalArgumentException("delegate and pool must not be null");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.delegate = delegate;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchResult result = search(text, pattern);
+        comparisons = result.getComparisons();
+        return result.getMatches();
+    }
+
+    /**
+     * Chunks finish out of order, so matches are collected first and then
+     * passed to sink in increasing order
+     */
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        for (int position : findMatches(text, pattern)) {
+            sink.accept(position);
+        }
+    }
+
+    /**
+     * Comparisons are summed over all chunks. When the text is split, the
+     * pattern is compiled once and its preprocessing is not counted.
+     */
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+        if (!shouldSplit(text, pattern)) {
+            return delegate.search(text, pattern);
+        }
+        return ChunkedSearch.search(pool, delegate.compile(pattern), text, chunkSize);
+    }
+
+    @Override
+    public CompiledPattern compile(String pattern) {
+        return new Compiled(delegate.compile(pattern));
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return The folding of the wrapped matcher
+     */
+    @Override
+    public CaseFolding getCaseFolding() {
+        return delegate.getCaseFolding();
+    }
+
+    /**
+     * @return The algorithm run on every chunk
+     */
+    public StringMatcher getDelegate() {
+        return delegate;
+    }
+
+    private boolean shouldSplit(String text, String pattern) {
+        // An empty pattern also matches at text.length(), which no chunk owns
+        return !pattern.isEmpty() && text.length() >= sequentialThreshold;
+    }
+
+    /**
+     * Parallel searcher over an already compiled pattern of the wrapped algorithm
+     */
+    private final class Compiled implements CompiledPattern {
+        private final CompiledPattern compiled;
+
+        Compiled(CompiledPattern compiled) {
+            this.compiled = compiled;
+        }
+
+        @Override
+        public String pattern() {
+            return compiled.pattern();
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            for (int position : search(text).getMatches()) {
+                sink.accept(position);
+            }
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            String pattern = compiled.pattern();
+            if (text == null || pattern.length() > text.length() || !shouldSplit(text, pattern)) {
+                return compiled.search(text);
+            }
+            return ChunkedSearch.search(pool, compiled, text, chunkSize);
+        }
+
+        /**
+         * An early-exit search usually stops long before a parallel scan would
+         * finish, so it runs on the calling thread with the wrapped algorithm
+         */
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            compiled.findMatches(text, from, limit, sink);
+        }
+
+        /**
+         * Counts every chunk in parallel; no offsets are stored
+         */
+        @Override
+        public int count(String text) {
+            String pattern = compiled.pattern();
+            if (text == null || pattern.length() > text.length() || !shouldSplit(text, pattern)) {
+                return compiled.count(text);
+            }
+            return ChunkedSearch.count(pool, compiled, text, chunkSize);
+        }
+    }
+}
@@ -1,8 +1,16 @@
 /* 343 Project Program */
 
 package src.algorithms;
+import src.CompiledPattern;
+import src.CompiledPatternSet;
+import src.MatchResult;
 import src.StringMatcher;
-import java.util.ArrayList;
+import src.utils.CaseFolding;
+import src.utils.LongIntHashMap;
+import src.utils.MatchBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
 
 /**
  * Implements the Boyer-Moore string matching algorithm
@@ -10,101 +18,460 @@ import java.util.ArrayList;
  * @version 1.0
  */
 public class RabinKarpMatcher implements StringMatcher {
+    /**
+     * Modular arithmetic used for the single-pattern rolling hash
+     */
+    public enum HashMode {
+        /** The original 32-bit hash modulo 101: about 1 in 101 windows is a false hit */
+        SMALL_PRIME,
+        /** 64-bit hash modulo the Mersenne prime 2^61 - 1: false hits are practically never seen */
+        MERSENNE_61
+    }
+
     private long comparisons;
+    private final HashMode hashMode;
+    private final CaseFolding caseFolding;
 
-    // A large prime number to avoid hash collisions
+    // Modulus of the original 32-bit hash (HashMode.SMALL_PRIME)
     private static final int PRIME = 101;
 
+    // Base value for the hash function (can use any value, typically a power of the alphabet size)
+    private static final int BASE = 256; // For ASCII
+
+    // Modulus and base of the 61-bit hash (HashMode.MERSENNE_61); the base exceeds any char value
+    private static final long MERSENNE_PRIME = (1L << 61) - 1;
+    private static final long MERSENNE_BASE = 1_000_000_007L;
+
+    // Base of the 64-bit hash used by pattern sets; arithmetic wraps around modulo 2^64
+    private static final long SET_BASE = 1_000_003L;
+
+    /**
+     * Creates a matcher using the 61-bit Mersenne prime hash
+     */
+    public RabinKarpMatcher() {
+        this(HashMode.MERSENNE_61);
+    }
+
+    /**
+     * @param hashMode The modular arithmetic of the rolling hash
+     */
+    public RabinKarpMatcher(HashMode hashMode) {
+        this(hashMode, CaseFolding.NONE);
+    }
+
+    /**
+     * Creates a matcher whose rolling hash and verification use folded characters,
+     * so windows that differ from the pattern only in case hash equally
+     * @param hashMode The modular arithmetic of the rolling hash
+     * @param caseFolding How characters are folded before hashing and comparison
+     */
+    public RabinKarpMatcher(HashMode hashMode, CaseFolding caseFolding) {
+        if (hashMode == null || caseFolding == null) {
+            throw new IllegalArgumentException("hashMode and caseFolding must not be null");
+        }
+        this.hashMode = hashMode;
+        this.caseFolding = caseFolding;
+    }
+
     @Override
     public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
         comparisons = 0;
 
         if (text == null || pattern == null || pattern.length() > text.length()) {
-            return new int[0];
+            return;
         }
 
-        int n = text.length();
-        int m = pattern.length();
-        ArrayList<Integer> matches = new ArrayList<>();
+        ScanStats stats = new ScanStats();
+        new Compiled(pattern, hashMode, caseFolding).scan(text, sink, stats);
+        comparisons = stats.comparisons;
+    }
 
-        // Edge case: empty pattern matches at every position
-        if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                matches.add(i);
-            }
-            return listToArray(matches);
+    /**
+     * The result also reports hash collisions: windows whose hash equalled the
+     * pattern hash but whose characters did not match
+     */
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
         }
 
-        // Base value for the hash function (can use any value, typically a power of the alphabet size)
-        int d = 256; // For ASCII
+        return new Compiled(pattern, hashMode, caseFolding).search(text);
+    }
 
-        // Calculate the hash value of pattern and the first window of text
-        int patternHash = 0;
-        int textHash = 0;
-        int h = 1;
+    /**
+     * Hashes the pattern and computes h once; the returned searcher reuses them for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe Rabin-Karp searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(pattern, hashMode, caseFolding);
+    }
 
-        // Calculate h = d^(m-1) % PRIME
-        // This value is used when removing the leading digit
-        for (int i = 0; i < m - 1; i++) {
-            h = (h * d) % PRIME;
+    /**
+     * Groups the patterns by length and stores the hashes of each group in a primitive
+     * hash map. Searching costs one rolling-hash pass over the text per distinct pattern
+     * length, however many patterns share that length, which makes this a cheap-to-build
+     * alternative to an automaton for large dictionaries of fixed-length tokens.
+     * With case folding every pattern is searched separately instead.
+     * @param patterns The patterns, identified by their iteration order
+     * @return A reusable, thread-safe searcher for the whole set
+     */
+    @Override
+    public CompiledPatternSet compileAll(Collection<String> patterns) {
+        if (patterns == null) {
+            throw new IllegalArgumentException("patterns must not be null");
+        }
+        if (caseFolding != CaseFolding.NONE) {
+            return StringMatcher.super.compileAll(patterns);
         }
+        return new PatternSet(patterns.toArray(new String[0]));
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return The modular arithmetic used by this matcher
+     */
+    public HashMode getHashMode() {
+        return hashMode;
+    }
+
+    /**
+     * @return How this matcher folds characters before hashing and comparing them
+     */
+    @Override
+    public CaseFolding getCaseFolding() {
+        return caseFolding;
+    }
 
-        // Calculate the hash value of pattern and the first window of text
-        for (int i = 0; i < m; i++) {
-            patternHash = (d * patternHash + pattern.charAt(i)) % PRIME;
-            textHash = (d * textHash + text.charAt(i)) % PRIME;
+    /**
+     * Computes (a * b) mod 2^61 - 1 for a, b in [0, 2^61 - 1) without overflow.
+     * The 122-bit product is split into high and low words; since 2^61 = 1 (mod p),
+     * the bits above position 61 can simply be added back in.
+     */
+    static long mulModMersenne(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long result = (low & MERSENNE_PRIME) + (low >>> 61) + (high << 3);
+        result = (result & MERSENNE_PRIME) + (result >>> 61);
+        return result >= MERSENNE_PRIME ? result - MERSENNE_PRIME : result;
+    }
+
+    /**
+     * Counters of one scan, kept per call so compiled patterns stay thread-safe
+     */
+    private static final class ScanStats {
+        long comparisons;
+        long collisions;
+    }
+
+    /**
+     * Immutable Rabin-Karp searcher holding the pattern hash and h = BASE^(m-1) mod the modulus
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final String folded;
+        private final HashMode hashMode;
+        private final CaseFolding caseFolding;
+        private final long patternHash;
+        private final long h;
+
+        Compiled(String pattern, HashMode hashMode, CaseFolding caseFolding) {
+            this.pattern = pattern;
+            this.folded = caseFolding.fold(pattern);
+            this.hashMode = hashMode;
+            this.caseFolding = caseFolding;
+            int m = pattern.length();
+
+            // Calculate h = d^(m-1) % PRIME
+            // This value is used when removing the leading digit
+            long power = 1;
+            for (int i = 0; i < m - 1; i++) {
+                power = hashMode == HashMode.SMALL_PRIME
+                        ? (power * BASE) % PRIME
+                        : mulModMersenne(power, MERSENNE_BASE);
+            }
+            this.h = power;
+
+            // Calculate the hash value of pattern
+            this.patternHash = hashWindow(pattern, 0, m);
         }
 
-        // Slide the pattern over text one by one
-        for (int i = 0; i <= n - m; i++) {
-            // Check if the hash values match
-            if (patternHash == textHash) {
-                // If hash values match, verify character by character
-                boolean match = true;
-                for (int j = 0; j < m; j++) {
-                    comparisons++;
-                    if (text.charAt(i + j) != pattern.charAt(j)) {
-                        match = false;
-                        break;
-                    }
-                }
+        /**
+         * Hash of the m folded characters of s starting at start
+         */
+        private long hashWindow(String s, int start, int m) {
+            long hash = 0;
+            for (int i = start; i < start + m; i++) {
+                hash = appendChar(hash, caseFolding.fold(s.charAt(i)));
+            }
+            return hash;
+        }
 
-                if (match) {
-                    matches.add(i);
-                }
+        /**
+         * Shifts the hash one digit to the left and adds c as the lowest digit
+         */
+        private long appendChar(long hash, char c) {
+            if (hashMode == HashMode.SMALL_PRIME) {
+                return (BASE * hash + c) % PRIME;
             }
+            long result = mulModMersenne(hash, MERSENNE_BASE) + c;
+            return result >= MERSENNE_PRIME ? result - MERSENNE_PRIME : result;
+        }
 
-            // Calculate hash value for the next window of text
-            if (i < n - m) {
+        /**
+         * Hash of the next window: removes the leading character and appends the trailing one
+         */
+        private long roll(long hash, char leading, char trailing) {
+            if (hashMode == HashMode.SMALL_PRIME) {
                 // Remove leading digit, add trailing digit
-                textHash = (d * (textHash - text.charAt(i) * h) + text.charAt(i + m)) % PRIME;
+                long result = (BASE * (hash - leading * h) + trailing) % PRIME;
 
                 // Handle negative hash values
-                if (textHash < 0) {
-                    textHash += PRIME;
-                }
+                return result < 0 ? result + PRIME : result;
             }
+            long removed = hash - mulModMersenne(leading, h);
+            if (removed < 0) {
+                removed += MERSENNE_PRIME;
+            }
+            return appendChar(removed, trailing);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink, new ScanStats());
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink, new ScanStats());
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            ScanStats stats = new ScanStats();
+            scan(text, matches, stats);
+            return new MatchResult(matches.toArray(), stats.comparisons, -1, stats.collisions);
         }
 
-        return listToArray(matches);
+        void scan(String text, IntConsumer sink, ScanStats stats) {
+            scan(text, 0, Integer.MAX_VALUE, sink, stats);
+        }
+
+        /**
+         * Rolls the window hash over text and verifies windows whose hash matches
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @param stats Receives the character comparisons and hash collisions of this scan
+         */
+        void scan(String text, int from, int limit, IntConsumer sink, ScanStats stats) {
+            if (text == null || pattern.length() > text.length()) {
+                return;
+            }
+
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return;
+            }
+            if (start > n - m) {
+                return;
+            }
+            int found = 0;
+
+            // Calculate the hash value of the first window of text
+            long textHash = hashWindow(text, start, m);
+
+            // Slide the pattern over text one by one
+            for (int i = start; i <= n - m; i++) {
+                // Check if the hash values match
+                if (patternHash == textHash) {
+                    // If hash values match, verify character by character
+                    boolean match = true;
+                    for (int j = 0; j < m; j++) {
+                        stats.comparisons++;
+                        if (caseFolding.fold(text.charAt(i + j)) != folded.charAt(j)) {
+                            match = false;
+                            break;
+                        }
+                    }
+
+                    if (match) {
+                        sink.accept(i);
+                        if (++found == limit) {
+                            return;
+                        }
+                    } else {
+                        stats.collisions++;
+                    }
+                }
+
+                // Calculate hash value for the next window of text
+                if (i < n - m) {
+                    textHash = roll(textHash, caseFolding.fold(text.charAt(i)), caseFolding.fold(text.charAt(i + m)));
+                }
+            }
+        }
     }
 
     /**
-     * Converts ArrayList of integers to int array
-     *
-     * @param list ArrayList to convert
-     * @return int array with the same elements
+     * Immutable multi-pattern Rabin-Karp searcher. Patterns of each distinct length
+     * form a group with its own hash table; patterns whose hashes collide are chained
+     * through nextSameHash and always verified character by character.
      */
-    private int[] listToArray(ArrayList<Integer> list) {
-        int[] result = new int[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            result[i] = list.get(i);
+    private static final class PatternSet implements CompiledPatternSet {
+        private final String[] patterns;
+        // Distinct non-zero pattern lengths in increasing order, one group per length
+        private final int[] lengths;
+        // SET_BASE^(length - 1) for each group, used to remove the leading character
+        private final long[] powers;
+        // Window hash -> id of a pattern in the group with that hash
+        private final LongIntHashMap[] tables;
+        // Next pattern id with the same length and hash, or -1
+        private final int[] nextSameHash;
+        private final int[] emptyIds;
+
+        PatternSet(String[] patterns) {
+            this.patterns = patterns;
+            int emptyCount = 0;
+            int[] allLengths = new int[patterns.length];
+            for (int id = 0; id < patterns.length; id++) {
+                if (patterns[id] == null) {
+                    throw new IllegalArgumentException("patterns must not contain null");
+                }
+                allLengths[id] = patterns[id].length();
+                if (allLengths[id] == 0) {
+                    emptyCount++;
+                }
+            }
+
+            // Distinct lengths, skipping the empty pattern
+            Arrays.sort(allLengths);
+            int groups = 0;
+            for (int i = 0; i < allLengths.length; i++) {
+                if (allLengths[i] > 0 && (groups == 0 || allLengths[i] != allLengths[groups - 1])) {
+                    allLengths[groups++] = allLengths[i];
+                }
+            }
+            this.lengths = Arrays.copyOf(allLengths, groups);
+
+            int[] groupSizes = new int[groups];
+            for (String pattern : patterns) {
+                if (!pattern.isEmpty()) {
+                    groupSizes[Arrays.binarySearch(lengths, pattern.length())]++;
+                }
+            }
+            this.powers = new long[groups];
+            this.tables = new LongIntHashMap[groups];
+            for (int g = 0; g < groups; g++) {
+                long power = 1;
+                for (int i = 0; i < lengths[g] - 1; i++) {
+                    power *= SET_BASE;
+                }
+                powers[g] = power;
+                tables[g] = new LongIntHashMap(groupSizes[g]);
+            }
+
+            this.nextSameHash = new int[patterns.length];
+            this.emptyIds = new int[emptyCount];
+            emptyCount = 0;
+            for (int id = 0; id < patterns.length; id++) {
+                String pattern = patterns[id];
+                if (pattern.isEmpty()) {
+                    emptyIds[emptyCount++] = id;
+                    nextSameHash[id] = -1;
+                    continue;
+                }
+                int g = Arrays.binarySearch(lengths, pattern.length());
+                nextSameHash[id] = tables[g].put(hash(pattern, pattern.length()), id);
+            }
         }
-        return result;
-    }
 
-    @Override
-    public long getComparisons() {
-        return comparisons;
+        /**
+         * Hash of the first length characters of s
+         */
+        private static long hash(String s, int length) {
+            long hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = hash * SET_BASE + s.charAt(i);
+            }
+            return hash;
+        }
+
+        @Override
+        public int size() {
+            return patterns.length;
+        }
+
+        @Override
+        public String pattern(int patternId) {
+            return patterns[patternId];
+        }
+
+        @Override
+        public void findMatches(String text, MatchSink sink) {
+            if (text == null) {
+                return;
+            }
+            int n = text.length();
+
+            // Edge case: empty patterns match at every position
+            for (int id : emptyIds) {
+                for (int i = 0; i <= n; i++) {
+                    sink.accept(id, i);
+                }
+            }
+
+            for (int g = 0; g < lengths.length && lengths[g] <= n; g++) {
+                int m = lengths[g];
+                long power = powers[g];
+                LongIntHashMap table = tables[g];
+
+                long textHash = hash(text, m);
+                for (int i = 0; ; i++) {
+                    // Verify every pattern of this length whose hash equals the window hash
+                    for (int id = table.get(textHash); id >= 0; id = nextSameHash[id]) {
+                        if (text.regionMatches(i, patterns[id], 0, m)) {
+                            sink.accept(id, i);
+                        }
+                    }
+
+                    if (i == n - m) {
+                        break;
+                    }
+                    // Remove leading character, add trailing character
+                    textHash = (textHash - text.charAt(i) * power) * SET_BASE + text.charAt(i + m);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
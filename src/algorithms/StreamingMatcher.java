@@ -0,0 +1,220 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
+
+/**
+ * Incremental string matcher for text that arrives in chunks (network or pipe streams).
+ * It runs the KMP automaton from KMPMatcher, which never moves backwards in the text,
+ * so only the current pattern state has to be kept between chunks. Matches that
+ * cross a chunk boundary are still found, and every match is reported with its
+ * absolute character offset from the start of the stream.
+ *
+ * Bytes fed through feed(ByteBuffer) are decoded with the given charset; an
+ * incomplete multi-byte sequence at the end of a chunk is kept until the next one.
+ * An instance follows a single stream and is not thread-safe.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class StreamingMatcher {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String pattern;
+    private final int[] lps;
+    private final LongConsumer sink;
+    private final CharsetDecoder decoder;
+    private final CharBuffer decoded = CharBuffer.allocate(BUFFER_SIZE);
+    // Bytes of a multi-byte character split across two feed(ByteBuffer) calls
+    private final ByteBuffer pendingBytes = ByteBuffer.allocate(16);
+
+    private int j; // number of pattern characters currently matched
+    private long position; // characters consumed so far
+    private long matchCount;
+
+    /**
+     * Creates a matcher that decodes byte input as UTF-8
+     * @param pattern The non-empty pattern to search for
+     * @param sink Receives the absolute offset of every match
+     */
+    public StreamingMatcher(String pattern, LongConsumer sink) {
+        this(pattern, StandardCharsets.UTF_8, sink);
+    }
+
+    /**
+     * @param pattern The non-empty pattern to search for
+     * @param charset Charset used to decode byte input
+     * @param sink Receives the absolute offset of every match
+     */
+    public StreamingMatcher(String pattern, Charset charset, LongConsumer sink) {
+        if (pattern == null || pattern.isEmpty()) {
+            throw new IllegalArgumentException("pattern must not be null or empty");
+        }
+        if (charset == null || sink == null) {
+            throw new IllegalArgumentException("charset and sink must not be null");
+        }
+        this.pattern = pattern;
+        this.lps = new int[pattern.length()];
+        KMPMatcher.computeLPSArray(pattern, lps);
+        this.sink = sink;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Consumes the next chunk of text
+     * @param chunk The characters following everything fed so far
+     */
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            step(chunk.charAt(i));
+        }
+    }
+
+    /**
+     * Decodes and consumes the remaining bytes of chunk
+     * @param chunk The bytes following everything fed so far; it is read to its limit
+     */
+    public void feed(ByteBuffer chunk) {
+        // First complete a character left over from the previous chunk
+        while (pendingBytes.position() > 0 && chunk.hasRemaining()) {
+            pendingBytes.put(chunk.get());
+            pendingBytes.flip();
+            decode(pendingBytes, false);
+            pendingBytes.compact();
+        }
+
+        if (pendingBytes.position() == 0) {
+            decode(chunk, false);
+            // Keep an incomplete trailing sequence for the next chunk
+            pendingBytes.put(chunk);
+        }
+    }
+
+    /**
+     * Reads and consumes the channel until end of stream; the channel is not closed
+     * @param channel The source of bytes
+     * @return Number of bytes read
+     * @throws IOException if reading fails
+     */
+    public long feed(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE * 8);
+        long total = 0;
+        int read;
+        while ((read = channel.read(buffer)) != -1) {
+            total += read;
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+        }
+        return total;
+    }
+
+    /**
+     * Reads and consumes the stream until end of stream; the stream is not closed
+     * @param in The source of bytes
+     * @return Number of bytes read
+     * @throws IOException if reading fails
+     */
+    public long feed(InputStream in) throws IOException {
+        return feed(Channels.newChannel(in));
+    }
+
+    /**
+     * Signals the end of the stream: any incomplete byte sequence is decoded
+     * as a replacement character and consumed
+     */
+    public void finish() {
+        pendingBytes.flip();
+        decode(pendingBytes, true);
+        pendingBytes.clear();
+        decoder.flush(decoded);
+        drainDecoded();
+        decoder.reset();
+    }
+
+    /**
+     * Forgets all input so the matcher can follow a new stream
+     */
+    public void reset() {
+        j = 0;
+        position = 0;
+        matchCount = 0;
+        pendingBytes.clear();
+        decoded.clear();
+        decoder.reset();
+    }
+
+    /**
+     * @return The pattern being searched for
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return Number of characters consumed so far
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return Number of matches reported so far
+     */
+    public long getMatchCount() {
+        return matchCount;
+    }
+
+    /**
+     * Advances the KMP automaton by one character of text
+     */
+    private void step(char c) {
+        // Fall back through the LPS array until c can extend the current match
+        while (j > 0 && pattern.charAt(j) != c) {
+            j = lps[j - 1];
+        }
+        if (pattern.charAt(j) == c) {
+            j++;
+        }
+        position++;
+
+        if (j == pattern.length()) {
+            matchCount++;
+            sink.accept(position - j);
+            j = lps[j - 1];
+        }
+    }
+
+    /**
+     * Decodes as much of input as possible, feeding the characters to the automaton
+     */
+    private void decode(ByteBuffer input, boolean endOfInput) {
+        while (true) {
+            CoderResult result = decoder.decode(input, decoded, endOfInput);
+            drainDecoded();
+            if (result.isUnderflow()) {
+                return;
+            }
+        }
+    }
+
+    private void drainDecoded() {
+        decoded.flip();
+        while (decoded.hasRemaining()) {
+            step(decoded.get());
+        }
+        decoded.clear();
+    }
+}
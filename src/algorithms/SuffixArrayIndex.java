@@ -0,0 +1,454 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.MatchResult;
+import src.TextIndex;
+import src.utils.IndexFile;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Suffix array index over a fixed text for answering many queries.
+ * The suffix array is built in linear time with SA-IS (induced sorting,
+ * Nong, Zhang and Chan 2009) and the LCP array with Kasai's algorithm; both are
+ * plain int arrays, so the index takes 8 bytes per character besides the text.
+ * All suffixes starting with a pattern form one contiguous range of the suffix
+ * array, found with two binary searches in O(m log n) character comparisons;
+ * count() returns the size of the range and search() lists its offsets.
+ *
+ * save() writes the text, suffix array and LCP array to an IndexFile; load()
+ * maps them back and searches them in place, so a loaded index costs no build
+ * time and no heap beyond the mapping.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class SuffixArrayIndex implements TextIndex {
+    private static final int KIND = 0x53414958; // "SAIX"
+    private static final int KIND_VERSION = 1;
+
+    // IndexFile section ids
+    private static final int TEXT = 0;
+    private static final int SUFFIX_ARRAY = 1;
+    private static final int LCP = 2;
+
+    private final CharBuffer text;
+    // suffixArray.get(r) is the start of the r-th smallest suffix
+    private final IntBuffer suffixArray;
+    // lcp.get(r) is the longest common prefix of the suffixes of rank r - 1 and r (lcp 0 is 0)
+    private final IntBuffer lcp;
+    // The text as a String, made on first request when the index was loaded
+    private volatile String textString;
+
+    /**
+     * Builds the suffix array and LCP array of text
+     * @param text The text to index
+     */
+    public SuffixArrayIndex(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("text must not be null");
+        }
+        int[] suffixes = buildSuffixArray(text);
+        this.text = CharBuffer.wrap(text);
+        this.textString = text;
+        this.suffixArray = IntBuffer.wrap(suffixes);
+        this.lcp = IntBuffer.wrap(buildLcpArray(text, suffixes));
+    }
+
+    private SuffixArrayIndex(CharBuffer text, IntBuffer suffixArray, IntBuffer lcp) {
+        this.text = text;
+        this.suffixArray = suffixArray;
+        this.lcp = lcp;
+    }
+
+    /**
+     * Writes the text, suffix array and LCP array as an IndexFile
+     * @param file The file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        new IndexFile.Writer(KIND, KIND_VERSION)
+                .putChars(TEXT, text)
+                .putInts(SUFFIX_ARRAY, suffixArray)
+                .putInts(LCP, lcp)
+                .write(file);
+    }
+
+    /**
+     * Opens an index written by save() without verifying section checksums
+     * @param file The index file
+     * @return The mapped index
+     * @throws IOException if the file cannot be read or is not a suffix array index file
+     */
+    public static SuffixArrayIndex load(Path file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * Opens an index written by save() by memory mapping it; the text and both
+     * arrays are read in place from the mapping
+     * @param file The index file
+     * @param verify Whether to check every section's checksum first, which reads the whole file
+     * @return The mapped index
+     * @throws IOException if the file cannot be read, is not a suffix array index file or is damaged
+     */
+    public static SuffixArrayIndex load(Path file, boolean verify) throws IOException {
+        IndexFile index = IndexFile.open(file);
+        index.requireKind(KIND, KIND_VERSION);
+        if (verify) {
+            index.verify();
+        }
+        CharBuffer text = index.chars(TEXT);
+        IntBuffer suffixArray = index.ints(SUFFIX_ARRAY);
+        IntBuffer lcp = index.ints(LCP);
+        if (suffixArray.remaining() != text.remaining() || lcp.remaining() != text.remaining()) {
+            throw new IOException(file + " does not hold arrays for its " + text.remaining() + " characters");
+        }
+        return new SuffixArrayIndex(text, suffixArray, lcp);
+    }
+
+    @Override
+    public int length() {
+        return text.remaining();
+    }
+
+    @Override
+    public int count(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        if (pattern.isEmpty()) {
+            return length() + 1;
+        }
+        long[] comparisons = {0};
+        return upperBound(pattern, comparisons) - lowerBound(pattern, comparisons);
+    }
+
+    @Override
+    public MatchResult search(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        if (pattern.isEmpty()) {
+            int[] all = new int[length() + 1];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return new MatchResult(all, 0);
+        }
+
+        long[] comparisons = {0};
+        int from = lowerBound(pattern, comparisons);
+        int to = upperBound(pattern, comparisons);
+        int[] matches = new int[Math.max(0, to - from)];
+        suffixArray.get(from, matches);
+        // Suffix order is lexicographic; callers expect text order
+        Arrays.sort(matches);
+        return new MatchResult(matches, comparisons[0]);
+    }
+
+    /**
+     * For a loaded index the String is copied out of the mapping on the first call
+     * @return The indexed text
+     */
+    public String getText() {
+        String result = textString;
+        if (result == null) {
+            result = text.toString();
+            textString = result;
+        }
+        return result;
+    }
+
+    /**
+     * Uses the LCP array to find the longest substring occurring at least twice
+     * @return The longest repeated substring, or "" if no character repeats
+     */
+    public String longestRepeatedSubstring() {
+        int best = 0;
+        for (int r = 1; r < lcp.remaining(); r++) {
+            if (lcp.get(r) > lcp.get(best)) {
+                best = r;
+            }
+        }
+        if (lcp.remaining() == 0) {
+            return "";
+        }
+        int start = suffixArray.get(best);
+        return text.subSequence(start, start + lcp.get(best)).toString();
+    }
+
+    /**
+     * First rank whose suffix is not smaller than pattern
+     */
+    private int lowerBound(String pattern, long[] comparisons) {
+        int low = 0;
+        int high = suffixArray.remaining();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixArray.get(mid), pattern, comparisons) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First rank whose suffix is larger than pattern and does not start with it
+     */
+    private int upperBound(String pattern, long[] comparisons) {
+        int low = 0;
+        int high = suffixArray.remaining();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixArray.get(mid), pattern, comparisons) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the suffix at start with pattern over the pattern's length
+     * @return Negative if the suffix is smaller, 0 if it starts with pattern, positive if larger
+     */
+    private int compare(int start, String pattern, long[] comparisons) {
+        int n = text.remaining();
+        int m = pattern.length();
+        for (int j = 0; j < m; j++) {
+            if (start + j == n) {
+                // The suffix is a proper prefix of pattern
+                return -1;
+            }
+            comparisons[0]++;
+            char a = text.get(start + j);
+            char b = pattern.charAt(j);
+            if (a != b) {
+                return a < b ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Builds the suffix array of text with SA-IS. Characters are first renamed
+     * to their rank among the distinct characters of text, so the bucket arrays
+     * are sized by the text's alphabet rather than by all of UTF-16.
+     * @param text The text
+     * @return Start positions of the suffixes of text in lexicographic order
+     */
+    static int[] buildSuffixArray(String text) {
+        int n = text.length();
+        if (n == 0) {
+            return new int[0];
+        }
+
+        int[] rank = new int[Character.MAX_VALUE + 1];
+        for (int i = 0; i < n; i++) {
+            rank[text.charAt(i)] = 1;
+        }
+        int alphabet = 1; // 0 is the sentinel
+        for (int c = 0; c < rank.length; c++) {
+            if (rank[c] != 0) {
+                rank[c] = alphabet++;
+            }
+        }
+
+        // Terminate with a unique smallest sentinel, as SA-IS requires
+        int[] s = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            s[i] = rank[text.charAt(i)];
+        }
+        int[] withSentinel = sais(s, alphabet);
+        // The sentinel suffix always sorts first
+        return Arrays.copyOfRange(withSentinel, 1, n + 1);
+    }
+
+    /**
+     * Computes the LCP array with Kasai's algorithm in linear time
+     * @param text The text
+     * @param suffixArray The suffix array of text
+     * @return lcp[r] = longest common prefix of the suffixes of rank r - 1 and r
+     */
+    static int[] buildLcpArray(String text, int[] suffixArray) {
+        int n = suffixArray.length;
+        int[] rankOf = new int[n];
+        for (int r = 0; r < n; r++) {
+            rankOf[suffixArray[r]] = r;
+        }
+
+        int[] lcp = new int[n];
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            int r = rankOf[i];
+            if (r == 0) {
+                h = 0;
+                continue;
+            }
+            int j = suffixArray[r - 1];
+            while (i + h < n && j + h < n && text.charAt(i + h) == text.charAt(j + h)) {
+                h++;
+            }
+            lcp[r] = h;
+            // The next suffix shares at least h - 1 characters with its predecessor
+            if (h > 0) {
+                h--;
+            }
+        }
+        return lcp;
+    }
+
+    /**
+     * SA-IS over an integer string ending with a unique smallest symbol 0
+     * @param s The string, with symbols in [0, alphabet)
+     * @param alphabet Number of distinct symbols
+     * @return The suffix array of s
+     */
+    private static int[] sais(int[] s, int alphabet) {
+        int n = s.length;
+        int[] sa = new int[n];
+        if (n == 1) {
+            return sa;
+        }
+
+        // Classify suffixes: S-type if smaller than the next suffix, L-type otherwise
+        boolean[] sType = new boolean[n];
+        sType[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && sType[i + 1]);
+        }
+
+        // Step 1: sort the LMS substrings by induced sorting from their unsorted positions
+        int[] bucket = new int[alphabet];
+        Arrays.fill(sa, -1);
+        bucketEnds(s, bucket);
+        for (int i = 1; i < n; i++) {
+            if (isLms(sType, i)) {
+                sa[--bucket[s[i]]] = i;
+            }
+        }
+        induce(s, sa, sType, bucket);
+
+        // Step 2: name the sorted LMS substrings; equal substrings get equal names
+        int lmsCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLms(sType, sa[i])) {
+                sa[lmsCount++] = sa[i];
+            }
+        }
+        Arrays.fill(sa, lmsCount, n, -1);
+
+        int names = 0;
+        int previous = -1;
+        for (int i = 0; i < lmsCount; i++) {
+            int position = sa[i];
+            boolean different = false;
+            for (int d = 0; ; d++) {
+                if (previous == -1 || s[position + d] != s[previous + d]
+                        || sType[position + d] != sType[previous + d]) {
+                    different = true;
+                    break;
+                }
+                if (d > 0 && (isLms(sType, position + d) || isLms(sType, previous + d))) {
+                    break;
+                }
+            }
+            if (different) {
+                names++;
+                previous = position;
+            }
+            // LMS positions are at least two apart, so position / 2 slots do not collide
+            sa[lmsCount + (position >> 1)] = names - 1;
+        }
+        for (int i = n - 1, j = n - 1; i >= lmsCount; i--) {
+            if (sa[i] >= 0) {
+                sa[j--] = sa[i];
+            }
+        }
+
+        // Step 3: sort the LMS suffixes, recursing while names are not unique
+        int[] reduced = Arrays.copyOfRange(sa, n - lmsCount, n);
+        int[] reducedSa;
+        if (names < lmsCount) {
+            reducedSa = sais(reduced, names);
+        } else {
+            reducedSa = new int[lmsCount];
+            for (int i = 0; i < lmsCount; i++) {
+                reducedSa[reduced[i]] = i;
+            }
+        }
+
+        // Step 4: induce the full order from the sorted LMS suffixes
+        int[] lmsPositions = new int[lmsCount];
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isLms(sType, i)) {
+                lmsPositions[j++] = i;
+            }
+        }
+        Arrays.fill(sa, -1);
+        bucketEnds(s, bucket);
+        for (int i = lmsCount - 1; i >= 0; i--) {
+            int position = lmsPositions[reducedSa[i]];
+            sa[--bucket[s[position]]] = position;
+        }
+        induce(s, sa, sType, bucket);
+        return sa;
+    }
+
+    /**
+     * Induces L-type suffixes left to right from the bucket starts, then
+     * S-type suffixes right to left from the bucket ends
+     */
+    private static void induce(int[] s, int[] sa, boolean[] sType, int[] bucket) {
+        int n = s.length;
+        bucketStarts(s, bucket);
+        for (int i = 0; i < n; i++) {
+            int j = sa[i] - 1;
+            if (sa[i] > 0 && !sType[j]) {
+                sa[bucket[s[j]]++] = j;
+            }
+        }
+        bucketEnds(s, bucket);
+        for (int i = n - 1; i >= 0; i--) {
+            int j = sa[i] - 1;
+            if (sa[i] > 0 && sType[j]) {
+                sa[--bucket[s[j]]] = j;
+            }
+        }
+    }
+
+    private static boolean isLms(boolean[] sType, int i) {
+        return i > 0 && sType[i] && !sType[i - 1];
+    }
+
+    private static void bucketStarts(int[] s, int[] bucket) {
+        Arrays.fill(bucket, 0);
+        for (int c : s) {
+            bucket[c]++;
+        }
+        int sum = 0;
+        for (int c = 0; c < bucket.length; c++) {
+            int size = bucket[c];
+            bucket[c] = sum;
+            sum += size;
+        }
+    }
+
+    private static void bucketEnds(int[] s, int[] bucket) {
+        Arrays.fill(bucket, 0);
+        for (int c : s) {
+            bucket[c]++;
+        }
+        int sum = 0;
+        for (int c = 0; c < bucket.length; c++) {
+            sum += bucket[c];
+            bucket[c] = sum;
+        }
+    }
+}
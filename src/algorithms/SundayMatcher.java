@@ -0,0 +1,178 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.CharIntMap;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements Sunday's quick search string matching algorithm.
+ * The shift is taken from the text character just after the window, which
+ * the next alignment has to cover anyway, so a character absent from the
+ * pattern moves the window by m + 1.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class SundayMatcher implements StringMatcher {
+    private long comparisons;
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        comparisons = new Compiled(pattern).scan(text, sink);
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        Compiled compiled = new Compiled(pattern);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
+
+    /**
+     * Builds the shift table once; the returned searcher reuses it for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe quick search searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(pattern);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Preprocess the pattern for the quick search shift.
+     * shift.get(c) is m minus the rightmost position of c in the pattern,
+     * or m + 1 if c does not occur in the pattern.
+     *
+     * @param pattern The pattern to preprocess
+     * @return The shift table
+     */
+    private static CharIntMap preprocessShift(String pattern) {
+        int m = pattern.length();
+        CharIntMap shift = new CharIntMap(m + 1);
+        for (int i = 0; i < m; i++) {
+            shift.put(pattern.charAt(i), m - i);
+        }
+        return shift;
+    }
+
+    /**
+     * Immutable quick search searcher holding the pattern and its shift table
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final CharIntMap shift;
+
+        Compiled(String pattern) {
+            this.pattern = pattern;
+            this.shift = preprocessShift(pattern);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Compares each window left to right, then shifts by the character after it
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            int position = start;
+            while (position <= n - m) {
+                int j = 0;
+                while (j < m) {
+                    comparisons++;
+                    if (pattern.charAt(j) != text.charAt(position + j)) {
+                        break;
+                    }
+                    j++;
+                }
+
+                if (j == m) {
+                    sink.accept(position);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+                }
+                // The last window has no character after it
+                if (position + m >= n) {
+                    break;
+                }
+                position += shift.get(text.charAt(position + m));
+            }
+            return comparisons;
+        }
+    }
+}
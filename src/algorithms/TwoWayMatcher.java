@@ -0,0 +1,273 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Implements the two-way string matching algorithm of Crochemore and Perrin.
+ * The pattern is split at a critical factorization pattern[0..ell] pattern[ell+1..m):
+ * each window is compared on the right part left to right, then on the left
+ * part right to left. Preprocessing computes only the split point and the
+ * period, so the search runs in linear time with a constant amount of extra
+ * space, independent of pattern length and alphabet size.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class TwoWayMatcher implements StringMatcher {
+    private long comparisons;
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        comparisons = new Compiled(pattern).scan(text, sink);
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        Compiled compiled = new Compiled(pattern);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
+
+    /**
+     * Computes the critical factorization once; the returned searcher reuses it for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe two-way searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(pattern);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Computes the maximal suffix of pattern for the character order (or its
+     * reverse) and the period of that suffix
+     *
+     * @param pattern The pattern
+     * @param reversed Whether to use the reversed character order
+     * @param period Receives the period of the maximal suffix in period[0]
+     * @return Position just before the maximal suffix (-1 if it is the whole pattern)
+     */
+    private static int maximalSuffix(String pattern, boolean reversed, int[] period) {
+        int m = pattern.length();
+        int start = -1;
+        int j = 0;
+        int k = 1;
+        int p = 1;
+
+        while (j + k < m) {
+            char a = pattern.charAt(j + k);
+            char b = pattern.charAt(start + k);
+            if (reversed ? a > b : a < b) {
+                // The candidate loses: the suffix so far is periodic with a longer period
+                j += k;
+                k = 1;
+                p = j - start;
+            } else if (a == b) {
+                if (k != p) {
+                    k++;
+                } else {
+                    j += p;
+                    k = 1;
+                }
+            } else {
+                // A larger suffix starts here
+                start = j;
+                j = start + 1;
+                k = 1;
+                p = 1;
+            }
+        }
+        period[0] = p;
+        return start;
+    }
+
+    /**
+     * Immutable two-way searcher holding the critical position and the period
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        // The left part of the factorization is pattern[0..ell]
+        private final int ell;
+        private final int period;
+        // Whether the left part occurs at ell + 1 - period, so that period is the pattern's period
+        private final boolean periodic;
+
+        Compiled(String pattern) {
+            this.pattern = pattern;
+
+            // The larger of the two maximal suffixes gives a critical factorization
+            int[] p = new int[1];
+            int[] q = new int[1];
+            int i = maximalSuffix(pattern, false, p);
+            int j = maximalSuffix(pattern, true, q);
+            int split = i > j ? i : j;
+            int suffixPeriod = i > j ? p[0] : q[0];
+
+            int m = pattern.length();
+            this.ell = split;
+            this.periodic = suffixPeriod + split + 1 <= m
+                    && pattern.regionMatches(0, pattern, suffixPeriod, split + 1);
+            this.period = periodic ? suffixPeriod : Math.max(split + 1, m - split - 1) + 1;
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Runs the two-way scan over text
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = pattern.length();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            int position = start;
+            if (periodic) {
+                // pattern[0..memory] is known to match after a shift by the period
+                int memory = -1;
+                while (position <= n - m) {
+                    // Right part, left to right
+                    int i = Math.max(ell, memory) + 1;
+                    while (i < m) {
+                        comparisons++;
+                        if (pattern.charAt(i) != text.charAt(position + i)) {
+                            break;
+                        }
+                        i++;
+                    }
+
+                    if (i < m) {
+                        position += i - ell;
+                        memory = -1;
+                        continue;
+                    }
+
+                    // Left part, right to left, down to the known prefix
+                    i = ell;
+                    while (i > memory) {
+                        comparisons++;
+                        if (pattern.charAt(i) != text.charAt(position + i)) {
+                            break;
+                        }
+                        i--;
+                    }
+                    if (i <= memory) {
+                        sink.accept(position);
+                        if (++found == limit) {
+                            return comparisons;
+                        }
+                    }
+                    position += period;
+                    memory = m - period - 1;
+                }
+            } else {
+                while (position <= n - m) {
+                    // Right part, left to right
+                    int i = ell + 1;
+                    while (i < m) {
+                        comparisons++;
+                        if (pattern.charAt(i) != text.charAt(position + i)) {
+                            break;
+                        }
+                        i++;
+                    }
+
+                    if (i < m) {
+                        position += i - ell;
+                        continue;
+                    }
+
+                    // Left part, right to left
+                    i = ell;
+                    while (i >= 0) {
+                        comparisons++;
+                        if (pattern.charAt(i) != text.charAt(position + i)) {
+                            break;
+                        }
+                        i--;
+                    }
+                    if (i < 0) {
+                        sink.accept(position);
+                        if (++found == limit) {
+                            return comparisons;
+                        }
+                    }
+                    position += period;
+                }
+            }
+            return comparisons;
+        }
+    }
+}
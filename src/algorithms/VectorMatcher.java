@@ -0,0 +1,230 @@
+/* 343 Project Program */
+
+package src.algorithms;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import src.CompiledPattern;
+import src.MatchResult;
+import src.StringMatcher;
+import src.utils.MatchBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * SIMD string matcher built on the Vector API (jdk.incubator.vector).
+ * The first and last pattern characters are broadcast into vectors and compared
+ * against a whole vector of window starts at once (16 lanes with AVX2, 32 with
+ * AVX-512); only positions where both characters match are verified one
+ * character at a time. The text is copied into a small char buffer with
+ * getChars, chunk by chunk, because a String's characters cannot be loaded
+ * into a vector directly.
+ *
+ * Requires running with --add-modules jdk.incubator.vector. Comparisons are
+ * counted per character compared: two per window start filtered by the vector
+ * compare, plus the verified middle characters.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class VectorMatcher implements StringMatcher {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    // Window starts examined per copied chunk of text
+    private static final int CHUNK_SIZE = 8192;
+
+    private long comparisons;
+
+    @Override
+    public int[] findMatches(String text, String pattern) {
+        MatchBuffer matches = new MatchBuffer();
+        findMatches(text, pattern, matches);
+        return matches.toArray();
+    }
+
+    @Override
+    public void findMatches(String text, String pattern, IntConsumer sink) {
+        comparisons = 0;
+
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return;
+        }
+
+        comparisons = new Compiled(pattern).scan(text, sink);
+    }
+
+    @Override
+    public MatchResult search(String text, String pattern) {
+        if (text == null || pattern == null || pattern.length() > text.length()) {
+            return MatchResult.empty();
+        }
+
+        Compiled compiled = new Compiled(pattern);
+        MatchBuffer matches = new MatchBuffer();
+        long comparisons = compiled.scan(text, matches);
+        return new MatchResult(matches.toArray(), comparisons);
+    }
+
+    /**
+     * Prepares the broadcast vectors once; the returned searcher reuses them for every text
+     * @param pattern The pattern to preprocess
+     * @return A reusable, thread-safe SIMD searcher for pattern
+     */
+    @Override
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new Compiled(pattern);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return Number of window starts compared per vector instruction on this machine
+     */
+    public static int laneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Immutable SIMD searcher holding the pattern characters and the broadcast first/last vectors
+     */
+    private static final class Compiled implements CompiledPattern {
+        private final String pattern;
+        private final char[] chars;
+        private final ShortVector first;
+        private final ShortVector last;
+
+        Compiled(String pattern) {
+            this.pattern = pattern;
+            this.chars = pattern.toCharArray();
+            int m = chars.length;
+            this.first = m == 0 ? null : ShortVector.broadcast(SPECIES, (short) chars[0]);
+            this.last = m == 0 ? null : ShortVector.broadcast(SPECIES, (short) chars[m - 1]);
+        }
+
+        @Override
+        public String pattern() {
+            return pattern;
+        }
+
+        @Override
+        public void findMatches(String text, IntConsumer sink) {
+            scan(text, sink);
+        }
+
+        @Override
+        public void findMatches(String text, int from, int limit, IntConsumer sink) {
+            scan(text, from, limit, sink);
+        }
+
+        @Override
+        public MatchResult search(String text) {
+            MatchBuffer matches = new MatchBuffer();
+            long comparisons = scan(text, matches);
+            return new MatchResult(matches.toArray(), comparisons);
+        }
+
+        long scan(String text, IntConsumer sink) {
+            return scan(text, 0, Integer.MAX_VALUE, sink);
+        }
+
+        /**
+         * Filters window starts a vector at a time and verifies the candidates
+         * @param text The text to search within
+         * @param from First window start to try; negative values count as 0
+         * @param limit Number of matches after which the scan stops
+         * @param sink Receives the starting index of every match
+         * @return Number of character comparisons performed
+         */
+        long scan(String text, int from, int limit, IntConsumer sink) {
+            if (text == null || pattern.length() > text.length()) {
+                return 0;
+            }
+
+            long comparisons = 0;
+            int n = text.length();
+            int start = Math.max(from, 0);
+            int m = chars.length;
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (int i = start; i <= n && i - start < limit; i++) {
+                    sink.accept(i);
+                }
+                return comparisons;
+            }
+            int found = 0;
+
+            int lanes = SPECIES.length();
+            int starts = n - m + 1;
+            if (start >= starts) {
+                return comparisons;
+            }
+            int inner = Math.max(0, m - 2);
+            // Each chunk also needs the m-1 characters after its last window start
+            char[] buffer = new char[Math.min(CHUNK_SIZE, starts - start) + m - 1];
+
+            for (int base = start; base < starts; base += CHUNK_SIZE) {
+                int count = Math.min(CHUNK_SIZE, starts - base);
+                text.getChars(base, base + count + m - 1, buffer, 0);
+
+                int i = 0;
+                for (; i + lanes <= count; i += lanes) {
+                    comparisons += 2L * lanes;
+                    VectorMask<Short> candidates = ShortVector.fromCharArray(SPECIES, buffer, i).eq(first)
+                            .and(ShortVector.fromCharArray(SPECIES, buffer, i + m - 1).eq(last));
+
+                    long bits = candidates.toLong();
+                    while (bits != 0) {
+                        int candidate = i + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        int matched = matchInner(buffer, candidate);
+                        if (matched < inner) {
+                            comparisons += matched + 1;
+                            continue;
+                        }
+                        comparisons += inner;
+                        sink.accept(base + candidate);
+                        if (++found == limit) {
+                            return comparisons;
+                        }
+                    }
+                }
+
+                // Window starts left over after the last full vector
+                for (; i < count; i++) {
+                    comparisons += 2;
+                    if (buffer[i] != chars[0] || buffer[i + m - 1] != chars[m - 1]) {
+                        continue;
+                    }
+                    int matched = matchInner(buffer, i);
+                    if (matched < inner) {
+                        comparisons += matched + 1;
+                        continue;
+                    }
+                    comparisons += inner;
+                    sink.accept(base + i);
+                    if (++found == limit) {
+                        return comparisons;
+                    }
+                }
+            }
+            return comparisons;
+        }
+
+        /**
+         * Compares the middle pattern characters at a candidate whose first and last characters match
+         * @return Number of middle characters matched before the first mismatch; all of them for a match
+         */
+        private int matchInner(char[] buffer, int start) {
+            int m = chars.length;
+            int k = 1;
+            while (k < m - 1 && buffer[start + k] == chars[k]) {
+                k++;
+            }
+            return k - 1;
+        }
+    }
+}
@@ -0,0 +1,503 @@
+/* 343 Project Program */
+
+package src.tests;
+import src.CompiledPattern;
+import src.CompiledPatternSet;
+import src.SequentialPatternSet;
+import src.StringMatcher;
+import src.TextIndex;
+import src.algorithms.AhoCorasickMatcher;
+import src.algorithms.BoyerMooreMatcher;
+import src.algorithms.KMPMatcher;
+import src.algorithms.ParallelMatcher;
+import src.algorithms.RabinKarpMatcher;
+import src.algorithms.FMIndex;
+import src.algorithms.SuffixArrayIndex;
+import src.utils.TimerUtil;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite for the string matching algorithms, modelled on JMH.
+ * Every (algorithm, text size, pattern) case is measured in its own forked JVM
+ * with warmup iterations followed by timed iterations, and reported in
+ * throughput (ops/s) and average time (ns/op) modes. With "-prof gc" the
+ * normalized allocation rate (bytes per search) and GC count are reported too.
+ *
+ * The project has no build tool, so JMH itself is not available; this class
+ * only depends on the JDK. Usage (from the project root):
+ *   java -cp out src.tests.MatcherBenchmark [-f forks] [-wi n] [-i n] [-r millis]
+ *        [-bm thrpt|avgt|all] [-prof gc] [-compiled] [-a algorithmName] [-s size,size,...]
+ * With "-compiled" the pattern is preprocessed once outside the timed loop, which
+ * measures the steady-state cost of searching with a CompiledPattern.
+ * With "-scaling" each algorithm is instead wrapped in a ParallelMatcher and timed
+ * on a 16M character text (or the first "-s" size) with 1, 2, 4, ... worker
+ * threads up to the number of cores, reporting the speedup over one thread.
+ * With "-multi" dictionaries of 10, 100 and 1000 words are searched on a 1M
+ * character text (or the first "-s" size), comparing the multi-pattern engines
+ * with compiling each pattern separately and scanning once per pattern.
+ * With "-index" a SuffixArrayIndex and an FMIndex are built over each text size and their query
+ * times are compared with scanning (Horspool, or the "-a" algorithm); the crossover
+ * is the number of queries after which building the index has paid for itself.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class MatcherBenchmark {
+    private static final String CHILD_FLAG = "--child";
+    private static final int[] TEXT_SIZES = {150, 10000, 100000, 1000000};
+    // Default text size for the parallel scaling run
+    private static final int SCALING_TEXT_SIZE = 16_000_000;
+    // Dictionary sizes for the multi-pattern run
+    private static final int[] MULTI_PATTERN_COUNTS = {10, 100, 1000};
+
+    /**
+     * Command line options, with the same names as the JMH flags
+     */
+    private static class Options {
+        int forks = 1;
+        int warmupIterations = 3;
+        int iterations = 5;
+        long iterationMillis = 200;
+        boolean throughput = true;
+        boolean averageTime = true;
+        boolean gcProfiler = false;
+        boolean compiled = false;
+        boolean scaling = false;
+        boolean multi = false;
+        boolean index = false;
+        String algorithm = null;
+        int[] sizes = TEXT_SIZES;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-f":
+                        options.forks = Integer.parseInt(args[++i]);
+                        break;
+                    case "-wi":
+                        options.warmupIterations = Integer.parseInt(args[++i]);
+                        break;
+                    case "-i":
+                        options.iterations = Integer.parseInt(args[++i]);
+                        break;
+                    case "-r":
+                        options.iterationMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "-bm":
+                        String mode = args[++i];
+                        options.throughput = mode.equals("thrpt") || mode.equals("all");
+                        options.averageTime = mode.equals("avgt") || mode.equals("all");
+                        break;
+                    case "-prof":
+                        options.gcProfiler = args[++i].equals("gc");
+                        break;
+                    case "-compiled":
+                        options.compiled = true;
+                        break;
+                    case "-scaling":
+                        options.scaling = true;
+                        break;
+                    case "-multi":
+                        options.multi = true;
+                        break;
+                    case "-index":
+                        options.index = true;
+                        break;
+                    case "-a":
+                        options.algorithm = args[++i];
+                        break;
+                    case "-s":
+                        String[] parts = args[++i].split(",");
+                        options.sizes = new int[parts.length];
+                        for (int j = 0; j < parts.length; j++) {
+                            options.sizes[j] = Integer.parseInt(parts[j].trim());
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return options;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(CHILD_FLAG)) {
+            runChild(args);
+            return;
+        }
+
+        Options options = Options.parse(args);
+        String baseText = TextLoaderTest.loadTextFromFile("data/medium_text.txt");
+        if (options.scaling) {
+            runScaling(baseText, options);
+            return;
+        }
+        if (options.multi) {
+            runMultiPattern(baseText, options);
+            return;
+        }
+        if (options.index) {
+            runIndexCrossover(baseText, options);
+            return;
+        }
+
+        System.out.println("# Forks: " + options.forks
+                + ", warmup: " + options.warmupIterations + " x " + options.iterationMillis + " ms"
+                + ", measurement: " + options.iterations + " x " + options.iterationMillis + " ms");
+        System.out.printf("%-30s %8s %-32s %6s %4s %16s %14s %8s%n",
+                "Benchmark", "(size)", "(pattern)", "Mode", "Cnt", "Score", "StdDev", "Units");
+
+        for (int size : options.sizes) {
+            String text = TextLoaderTest.generateTextOfSize(baseText, size);
+            String[] patterns = TextLoaderTest.getPatternsForTextSize(text, size);
+
+            for (int p = 0; p < patterns.length; p++) {
+                for (StringMatcher matcher : TextLoaderTest.createMatchers()) {
+                    String name = matcher.getClass().getSimpleName();
+                    if (options.algorithm != null && !name.equals(options.algorithm)) {
+                        continue;
+                    }
+
+                    List<TimerUtil.Iteration> iterations = new ArrayList<>();
+                    if (options.forks == 0) {
+                        iterations.addAll(runTrial(matcher, text, patterns[p], options));
+                    } else {
+                        for (int fork = 0; fork < options.forks; fork++) {
+                            iterations.addAll(runFork(name, size, p, options));
+                        }
+                    }
+                    report(name, size, patterns[p], iterations, options);
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures ParallelMatcher over each algorithm with an increasing number of worker threads.
+     * Runs in the current JVM, since the pools have to be created per thread count.
+     */
+    private static void runScaling(String baseText, Options options) {
+        int size = options.sizes == TEXT_SIZES ? SCALING_TEXT_SIZE : options.sizes[0];
+        String text = TextLoaderTest.generateTextOfSize(baseText, size);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        System.out.println("# Parallel scaling on " + String.format("%,d", size) + " characters, "
+                + cores + " cores available");
+        System.out.printf("%-30s %-16s %8s %16s %14s %8s%n",
+                "Benchmark", "(pattern)", "Threads", "Score(ns/op)", "StdDev", "Speedup");
+
+        for (String pattern : TextLoaderTest.getPatternsForTextSize(text, size)) {
+            for (StringMatcher matcher : TextLoaderTest.createMatchers()) {
+                String name = matcher.getClass().getSimpleName();
+                if (options.algorithm != null && !name.equals(options.algorithm)) {
+                    continue;
+                }
+
+                double singleThread = 0;
+                for (int threads : threadCounts) {
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    try {
+                        StringMatcher parallel = new ParallelMatcher(matcher, pool,
+                                ParallelMatcher.DEFAULT_CHUNK_SIZE, 0);
+                        List<TimerUtil.Iteration> iterations = runTrial(parallel, text, pattern, options);
+                        double[] averageTime = new double[iterations.size()];
+                        for (int i = 0; i < averageTime.length; i++) {
+                            averageTime[i] = iterations.get(i).nanosPerOp();
+                        }
+
+                        double mean = TimerUtil.mean(averageTime);
+                        if (threads == 1) {
+                            singleThread = mean;
+                        }
+                        System.out.printf("%-30s %-16s %8d %16.0f ± %12.0f %7.2fx%n",
+                                "Parallel" + name, "\"" + pattern + "\"", threads,
+                                mean, TimerUtil.stdev(averageTime), singleThread / mean);
+                    } finally {
+                        pool.shutdown();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures one pass of each pattern set engine over the text for growing dictionaries.
+     * Runs in the current JVM.
+     */
+    private static void runMultiPattern(String baseText, Options options) {
+        int size = options.sizes == TEXT_SIZES ? 1000000 : options.sizes[0];
+        String text = TextLoaderTest.generateTextOfSize(baseText, size);
+
+        System.out.println("# Multi-pattern search on " + String.format("%,d", size) + " characters");
+        System.out.printf("%-30s %10s %16s %14s %10s%n", "Benchmark", "(patterns)", "Score(ns/op)", "StdDev", "Matches");
+
+        for (int dictionarySize : MULTI_PATTERN_COUNTS) {
+            List<String> dictionary = buildDictionary(baseText, dictionarySize);
+            Map<String, CompiledPatternSet> engines = new LinkedHashMap<>();
+            engines.put("AhoCorasick", new AhoCorasickMatcher().compileAll(dictionary));
+            engines.put("RabinKarpSet", new RabinKarpMatcher().compileAll(dictionary));
+            engines.put("Loop(KMPMatcher)", new SequentialPatternSet(new KMPMatcher(), dictionary));
+            engines.put("Loop(BoyerMooreMatcher)", new SequentialPatternSet(new BoyerMooreMatcher(), dictionary));
+
+            for (Map.Entry<String, CompiledPatternSet> engine : engines.entrySet()) {
+                CompiledPatternSet set = engine.getValue();
+                IntSupplier operation = () -> {
+                    int[] count = {0};
+                    set.findMatches(text, (patternId, offset) -> count[0]++);
+                    return count[0];
+                };
+
+                long iterationNanos = options.iterationMillis * 1_000_000;
+                for (int i = 0; i < options.warmupIterations; i++) {
+                    TimerUtil.runIteration(operation, iterationNanos);
+                }
+                double[] averageTime = new double[options.iterations];
+                for (int i = 0; i < options.iterations; i++) {
+                    averageTime[i] = TimerUtil.runIteration(operation, iterationNanos).nanosPerOp();
+                }
+
+                System.out.printf("%-30s %10d %16.0f ± %12.0f %10d%n", engine.getKey(), dictionarySize,
+                        TimerUtil.mean(averageTime), TimerUtil.stdev(averageTime), operation.getAsInt());
+            }
+        }
+    }
+
+    /**
+     * Compares building each text index and querying it with scanning the text per query.
+     * Runs in the current JVM.
+     */
+    private static void runIndexCrossover(String baseText, Options options) {
+        String scannerName = options.algorithm != null ? options.algorithm : "HorspoolMatcher";
+        StringMatcher scanner = null;
+        for (StringMatcher matcher : TextLoaderTest.createMatchers()) {
+            if (matcher.getClass().getSimpleName().equals(scannerName)) {
+                scanner = matcher;
+            }
+        }
+        if (scanner == null) {
+            throw new IllegalArgumentException("Unknown matcher: " + scannerName);
+        }
+        final StringMatcher scan = scanner;
+
+        System.out.println("# Text indexes vs. scanning with " + scannerName);
+        System.out.printf("%-30s %8s %-32s %12s %14s %14s %14s %12s%n", "Benchmark", "(size)", "(pattern)",
+                "Build(ms)", "Scan(ns/op)", "Locate(ns/op)", "Count(ns/op)", "Crossover");
+
+        for (int size : options.sizes) {
+            String text = TextLoaderTest.generateTextOfSize(baseText, size);
+            Map<String, Supplier<TextIndex>> builders = new LinkedHashMap<>();
+            builders.put("SuffixArrayIndex", () -> new SuffixArrayIndex(text));
+            builders.put("FMIndex", () -> new FMIndex(text));
+
+            for (Map.Entry<String, Supplier<TextIndex>> builder : builders.entrySet()) {
+                double buildNanos = measure(() -> builder.getValue().get().length(), options);
+                TextIndex index = builder.getValue().get();
+
+                for (String pattern : TextLoaderTest.getPatternsForTextSize(text, size)) {
+                    double scanNanos = measure(() -> scan.findMatches(text, pattern).length, options);
+                    double locateNanos = measure(() -> index.locate(pattern).length, options);
+                    double countNanos = measure(() -> index.count(pattern), options);
+
+                    // Queries needed before build + queries * locate drops below queries * scan
+                    String crossover = scanNanos <= locateNanos ? "never"
+                            : String.format("%,d", (long) Math.ceil(buildNanos / (scanNanos - locateNanos)));
+                    String display = "\"" + (pattern.length() <= 28 ? pattern : pattern.substring(0, 25) + "...") + "\"";
+                    System.out.printf("%-30s %8d %-32s %12.2f %14.0f %14.0f %14.0f %12s%n", builder.getKey(), size,
+                            display, buildNanos / 1_000_000, scanNanos, locateNanos, countNanos, crossover);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mean time per operation over the warmup and measurement settings
+     */
+    private static double measure(IntSupplier operation, Options options) {
+        long iterationNanos = options.iterationMillis * 1_000_000;
+        for (int i = 0; i < options.warmupIterations; i++) {
+            TimerUtil.runIteration(operation, iterationNanos);
+        }
+        double[] averageTime = new double[options.iterations];
+        for (int i = 0; i < options.iterations; i++) {
+            averageTime[i] = TimerUtil.runIteration(operation, iterationNanos).nanosPerOp();
+        }
+        return TimerUtil.mean(averageTime);
+    }
+
+    /**
+     * Distinct words of at least three letters from the text, padded with
+     * synthetic tokens if the text has fewer than count of them
+     */
+    private static List<String> buildDictionary(String text, int count) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : text.split("[^A-Za-z]+")) {
+            if (words.size() == count) {
+                break;
+            }
+            if (word.length() >= 3) {
+                words.add(word.toLowerCase());
+            }
+        }
+        for (int i = 0; words.size() < count; i++) {
+            words.add("zq" + i + "x");
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Runs the warmup and measurement iterations of one case in the current JVM
+     */
+    private static List<TimerUtil.Iteration> runTrial(StringMatcher matcher, String text, String pattern,
+                                                      Options options) {
+        long iterationNanos = options.iterationMillis * 1_000_000;
+        IntSupplier operation;
+        if (options.compiled) {
+            CompiledPattern compiledPattern = matcher.compile(pattern);
+            operation = () -> compiledPattern.findMatches(text).length;
+        } else {
+            operation = () -> matcher.findMatches(text, pattern).length;
+        }
+
+        for (int i = 0; i < options.warmupIterations; i++) {
+            TimerUtil.runIteration(operation, iterationNanos);
+        }
+
+        List<TimerUtil.Iteration> iterations = new ArrayList<>();
+        for (int i = 0; i < options.iterations; i++) {
+            iterations.add(TimerUtil.runIteration(operation, iterationNanos));
+        }
+        return iterations;
+    }
+
+    /**
+     * Runs one case in a fresh JVM and parses the iterations it prints
+     */
+    private static List<TimerUtil.Iteration> runFork(String name, int size, int patternIndex, Options options)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // Do not let the forks fight the parent over a debugger port
+            if (!jvmArg.startsWith("-agentlib:jdwp")) {
+                command.add(jvmArg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MatcherBenchmark.class.getName());
+        command.add(CHILD_FLAG);
+        command.add(name);
+        command.add(String.valueOf(size));
+        command.add(String.valueOf(patternIndex));
+        command.add(String.valueOf(options.warmupIterations));
+        command.add(String.valueOf(options.iterations));
+        command.add(String.valueOf(options.iterationMillis));
+        command.add(String.valueOf(options.compiled));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<TimerUtil.Iteration> iterations = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("ITER ")) {
+                    String[] f = line.split(" ");
+                    iterations.add(new TimerUtil.Iteration(Long.parseLong(f[1]), Long.parseLong(f[2]),
+                            Long.parseLong(f[3]), Long.parseLong(f[4])));
+                } else {
+                    System.out.println("  [fork] " + line);
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Benchmark fork failed for " + name + " at size " + size);
+        }
+        return iterations;
+    }
+
+    /**
+     * Entry point inside a forked JVM: measure a single case and print raw iterations
+     */
+    private static void runChild(String[] args) throws IOException {
+        String name = args[1];
+        int size = Integer.parseInt(args[2]);
+        int patternIndex = Integer.parseInt(args[3]);
+
+        Options options = new Options();
+        options.warmupIterations = Integer.parseInt(args[4]);
+        options.iterations = Integer.parseInt(args[5]);
+        options.iterationMillis = Long.parseLong(args[6]);
+        options.compiled = Boolean.parseBoolean(args[7]);
+
+        String text = TextLoaderTest.generateTextOfSize(TextLoaderTest.loadTextFromFile("data/medium_text.txt"), size);
+        String pattern = TextLoaderTest.getPatternsForTextSize(text, size)[patternIndex];
+
+        for (StringMatcher matcher : TextLoaderTest.createMatchers()) {
+            if (matcher.getClass().getSimpleName().equals(name)) {
+                for (TimerUtil.Iteration it : runTrial(matcher, text, pattern, options)) {
+                    System.out.println("ITER " + it.operations + " " + it.elapsedNanos + " "
+                            + it.allocatedBytes + " " + it.gcCount);
+                }
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown matcher: " + name);
+    }
+
+    /**
+     * Prints one result row per enabled mode, plus the gc profiler rows
+     */
+    private static void report(String name, int size, String pattern, List<TimerUtil.Iteration> iterations,
+                               Options options) {
+        int n = iterations.size();
+        double[] throughput = new double[n];
+        double[] averageTime = new double[n];
+        double[] allocation = new double[n];
+        long gcCount = 0;
+        for (int i = 0; i < n; i++) {
+            TimerUtil.Iteration it = iterations.get(i);
+            throughput[i] = it.opsPerSecond();
+            averageTime[i] = it.nanosPerOp();
+            allocation[i] = it.bytesPerOp();
+            gcCount += it.gcCount;
+        }
+
+        String display = "\"" + (pattern.length() <= 28 ? pattern : pattern.substring(0, 25) + "...") + "\"";
+        if (options.throughput) {
+            printRow(name, size, display, "thrpt", n, throughput, "ops/s");
+        }
+        if (options.averageTime) {
+            printRow(name, size, display, "avgt", n, averageTime, "ns/op");
+        }
+        if (options.gcProfiler) {
+            printRow(name + ":alloc.norm", size, display, "avgt", n, allocation, "B/op");
+            System.out.printf("%-30s %8d %-32s %6s %4d %16d %14s %8s%n",
+                    name + ":gc.count", size, display, "avgt", n, gcCount, "", "counts");
+        }
+    }
+
+    private static void printRow(String name, int size, String pattern, String mode, int count,
+                                 double[] values, String units) {
+        System.out.printf("%-30s %8d %-32s %6s %4d %16.3f ± %12.3f %8s%n",
+                name, size, pattern, mode, count, TimerUtil.mean(values), TimerUtil.stdev(values), units);
+    }
+}
@@ -2,14 +2,49 @@
 
 /** To add the test size: 150, 10k, 100k and 1M */
 package src.tests;
+import src.ByteMatcher;
+import src.CompiledPattern;
+import src.CompiledPatternSet;
+import src.MatchResult;
+import src.SequentialPatternSet;
 import src.StringMatcher;
+import src.TextIndex;
+import src.algorithms.AdaptiveMatcher;
+import src.algorithms.AhoCorasickMatcher;
 import src.algorithms.NaiveMatcher;
 import src.algorithms.KMPMatcher;
 import src.algorithms.BoyerMooreMatcher;
+import src.algorithms.BoyerMooreGalilMatcher;
+import src.algorithms.CachingMatcher;
+import src.algorithms.HorspoolMatcher;
+import src.algorithms.SundayMatcher;
+import src.algorithms.TwoWayMatcher;
 import src.algorithms.RabinKarpMatcher;
+import src.algorithms.ByteBoyerMooreMatcher;
+import src.algorithms.ByteKMPMatcher;
+import src.algorithms.StreamingMatcher;
+import src.algorithms.SuffixArrayIndex;
+import src.algorithms.FMIndex;
+import src.algorithms.IndexMatcher;
+import src.utils.BatchSearcher;
+import src.utils.CaseFolding;
+import src.utils.LruCache;
+import src.utils.MappedFileSearcher;
+import src.utils.MatchBuffer;
+import src.utils.PatternProfile;
+import src.utils.TimerUtil;
+import src.utils.Utf8OffsetTranslator;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This file is designed to test all algorithms implemented in the project.
@@ -19,10 +54,51 @@ import java.nio.file.Paths;
  */
 
 public class TextLoaderTest {
+    // Timing settings for the scalability comparison (per algorithm and pattern)
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 20_000_000;
+    // The SIMD matcher is only created when the JVM was started with this module
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_MATCHER = "src.algorithms.VectorMatcher";
+    // Predicts the best algorithm in the scalability analysis; calibrated in main
+    private static final AdaptiveMatcher ADAPTIVE = new AdaptiveMatcher();
 
-    // Method to load text from a file into a string
+    /**
+     * Creates one instance of every algorithm under comparison
+     */
+    static StringMatcher[] createMatchers() {
+        List<StringMatcher> matchers = new ArrayList<>(List.of(
+                new NaiveMatcher(),
+                new KMPMatcher(),
+                new BoyerMooreMatcher(),
+                new BoyerMooreGalilMatcher(),
+                new HorspoolMatcher(),
+                new SundayMatcher(),
+                new TwoWayMatcher(),
+                new RabinKarpMatcher(),
+                new AdaptiveMatcher()
+        ));
+
+        // Loaded reflectively so the other algorithms still run without --add-modules
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                matchers.add((StringMatcher) Class.forName(VECTOR_MATCHER).getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Could not create " + VECTOR_MATCHER + ": " + e.getMessage());
+            }
+        }
+        return matchers.toArray(new StringMatcher[0]);
+    }
+
+    // Method to load text from a file into a string (the data files are UTF-8)
     public static String loadTextFromFile(String filePath) throws IOException {
-        return new String(Files.readAllBytes(Paths.get(filePath)));
+        return new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+    }
+
+    // Method to load the raw bytes of a file for the byte matchers
+    public static byte[] loadBytesFromFile(String filePath) throws IOException {
+        return Files.readAllBytes(Paths.get(filePath));
     }
 
     // Method to run tests with a specific algorithm and text
@@ -31,11 +107,10 @@ public class TextLoaderTest {
         System.out.println("Text length: " + text.length() + " characters");
         System.out.println("Pattern: \"" + pattern + "\" (length: " + pattern.length() + ")");
 
-        long startTime = System.nanoTime();
-        int[] matches = matcher.findMatches(text, pattern);
-        long endTime = System.nanoTime();
+        MatchResult result = matcher.searchTimed(text, pattern);
+        int[] matches = result.getMatches();
 
-        long duration = (endTime - startTime);
+        long duration = result.getElapsedNanos();
 
         System.out.println("Found " + matches.length + " matches");
         System.out.println("First 5 matches at positions: ");
@@ -45,31 +120,27 @@ public class TextLoaderTest {
         System.out.println();
 
         System.out.println("Time taken: " + duration + " nanoseconds");
-        System.out.println("Character comparisons: " + matcher.getComparisons());
+        System.out.println("Character comparisons: " + result.getComparisons());
     }
 
     // Method to compare multiple algorithms on the same text and pattern
     public static void compareAlgorithms(String text, String pattern) {
-        StringMatcher[] matchers = {
-                new NaiveMatcher(),
-                new KMPMatcher(),
-                new BoyerMooreMatcher(),
-                new RabinKarpMatcher()
-        };
+        StringMatcher[] matchers = createMatchers();
 
         System.out.println("\n==== ALGORITHM COMPARISON ====");
         System.out.println("Text length: " + text.length());
         System.out.println("Pattern: \"" + pattern + "\" (length: " + pattern.length() + ")");
 
         for (StringMatcher matcher : matchers) {
-            long startTime = System.nanoTime();
-            int[] matches = matcher.findMatches(text, pattern);
-            long endTime = System.nanoTime();
+            MatchResult result = matcher.searchTimed(text, pattern);
 
             System.out.println("\n" + matcher.getClass().getSimpleName() + ":");
-            System.out.println("Matches found: " + matches.length);
-            System.out.println("Time: " + (endTime - startTime) + " ns");
-            System.out.println("Comparisons: " + matcher.getComparisons());
+            System.out.println("Matches found: " + result.getMatchCount());
+            System.out.println("Time: " + result.getElapsedNanos() + " ns");
+            System.out.println("Comparisons: " + result.getComparisons());
+            if (result.getCollisions() > 0) {
+                System.out.println("Hash collisions: " + result.getCollisions());
+            }
         }
     }
 
@@ -94,6 +165,418 @@ public class TextLoaderTest {
         runTest(matcher, text, repeatingPattern);
     }
 
+    /**
+     * Shares a single instance of each algorithm between several threads and checks
+     * that every concurrent search returns the same matches and comparison count
+     * as a search on the main thread
+     */
+    public static void testSharedMatcherAcrossThreads(String text, String[] patterns) {
+        System.out.println("\n==== SHARED MATCHER THREAD SAFETY ====");
+        int threadCount = 8;
+
+        for (StringMatcher matcher : createMatchers()) {
+            MatchResult[] expected = new MatchResult[patterns.length];
+            for (int p = 0; p < patterns.length; p++) {
+                expected[p] = matcher.search(text, patterns[p]);
+            }
+
+            AtomicInteger failures = new AtomicInteger();
+            Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (int p = 0; p < patterns.length; p++) {
+                            MatchResult result = matcher.search(text, patterns[p]);
+                            if (!Arrays.equals(result.getMatches(), expected[p].getMatches())
+                                    || result.getComparisons() != expected[p].getComparisons()) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            System.out.println(matcher.getClass().getSimpleName() + ": "
+                    + (failures.get() == 0 ? "consistent across " + threadCount + " threads"
+                    : failures.get() + " inconsistent results"));
+        }
+    }
+
+    /**
+     * Searches a file through memory mapping with the byte-level matchers and
+     * compares the match counts with a String search over the loaded text
+     */
+    public static void testMappedFileSearch(String filePath, String[] patterns) throws IOException {
+        System.out.println("\n==== MEMORY-MAPPED FILE SEARCH ====");
+        String text = loadTextFromFile(filePath);
+        ByteMatcher[] byteMatchers = {new ByteBoyerMooreMatcher(), new ByteKMPMatcher()};
+
+        for (String pattern : patterns) {
+            int expected = new BoyerMooreMatcher().search(text, pattern).getMatchCount();
+            for (ByteMatcher byteMatcher : byteMatchers) {
+                MappedFileSearcher searcher = new MappedFileSearcher(byteMatcher, MappedFileSearcher.DEFAULT_WINDOW_SIZE);
+                long startTime = System.nanoTime();
+                long count = searcher.count(Paths.get(filePath), pattern.getBytes(StandardCharsets.UTF_8));
+                long endTime = System.nanoTime();
+
+                System.out.printf("%-22s \"%s\": %d matches (String search: %d) in %d ns%n",
+                        byteMatcher.getClass().getSimpleName(), pattern, count, expected, endTime - startTime);
+            }
+        }
+    }
+
+    /**
+     * Compares contains, indexOf and count with collecting every match on a text
+     * of about one million characters; the early-exit calls must agree with
+     * findMatches and should return as soon as the first occurrence is seen
+     */
+    public static void testEarlyExitSearch(String baseText, String[] patterns) {
+        System.out.println("\n==== EARLY EXIT AND COUNT-ONLY SEARCH ====");
+        String text = generateTextOfSize(baseText, 1_000_000);
+
+        for (StringMatcher matcher : createMatchers()) {
+            String name = matcher.getClass().getSimpleName();
+            for (String pattern : patterns) {
+                long startTime = System.nanoTime();
+                int[] matches = matcher.findMatches(text, pattern);
+                long findNanos = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                boolean found = matcher.contains(text, pattern);
+                long containsNanos = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                int count = matcher.count(text, pattern);
+                long countNanos = System.nanoTime() - startTime;
+
+                int first = matcher.indexOf(text, pattern, 0);
+                int second = first < 0 ? -1 : matcher.indexOf(text, pattern, first + 1);
+                boolean agrees = found == (matches.length > 0) && count == matches.length
+                        && first == (matches.length > 0 ? matches[0] : -1)
+                        && second == (matches.length > 1 ? matches[1] : -1);
+                System.out.printf("%-22s \"%s\": contains %d us, count %d us, findMatches %d us (%s)%n",
+                        name, pattern, containsNanos / 1000, countNanos / 1000, findNanos / 1000,
+                        agrees ? "agrees" : "DIFFERENT");
+            }
+        }
+    }
+
+    /**
+     * Takes the first few matches from the lazy stream of every algorithm on a
+     * text of about one million characters, and checks that both the limited
+     * and the fully consumed stream agree with findMatches
+     */
+    public static void testLazyMatches(String baseText, String[] patterns) {
+        System.out.println("\n==== LAZY MATCH STREAMS ====");
+        String text = generateTextOfSize(baseText, 1_000_000);
+        int limit = 5;
+
+        for (StringMatcher matcher : createMatchers()) {
+            String name = matcher.getClass().getSimpleName();
+            for (String pattern : patterns) {
+                long startTime = System.nanoTime();
+                int[] first = matcher.matches(text, pattern).limit(limit).toArray();
+                long firstNanos = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                int[] matches = matcher.findMatches(text, pattern);
+                long findNanos = System.nanoTime() - startTime;
+
+                boolean agrees = Arrays.equals(first, Arrays.copyOf(matches, Math.min(limit, matches.length)))
+                        && Arrays.equals(matcher.matches(text, pattern).toArray(), matches);
+                System.out.printf("%-22s \"%s\": first %d matches in %d us, all %d in %d us (%s)%n",
+                        name, pattern, first.length, firstNanos / 1000, matches.length, findNanos / 1000,
+                        agrees ? "agrees" : "DIFFERENT");
+            }
+        }
+    }
+
+    /**
+     * Searches many documents for many compiled patterns, first with nested loops
+     * and then with BatchSearcher, and checks that the grouped results agree.
+     * The documents are the lines of the text plus one large generated document.
+     */
+    public static void testBatchSearch(String baseText, String[] patterns) {
+        System.out.println("\n==== BATCH SEARCH ====");
+        List<String> documents = new ArrayList<>(Arrays.asList(baseText.split("\n")));
+        documents.add(generateTextOfSize(baseText, 1_000_000));
+        List<CompiledPattern> compiled = new ArrayList<>();
+        StringMatcher matcher = new HorspoolMatcher();
+        for (String pattern : patterns) {
+            compiled.add(matcher.compile(pattern));
+        }
+
+        long startTime = System.nanoTime();
+        int[][][] expected = new int[documents.size()][compiled.size()][];
+        for (int d = 0; d < documents.size(); d++) {
+            for (int p = 0; p < compiled.size(); p++) {
+                expected[d][p] = compiled.get(p).findMatches(documents.get(d));
+            }
+        }
+        long loopNanos = System.nanoTime() - startTime;
+
+        BatchSearcher searcher = new BatchSearcher();
+        startTime = System.nanoTime();
+        int[][][] batched = searcher.findMatches(documents, compiled);
+        long batchNanos = System.nanoTime() - startTime;
+
+        System.out.printf("%d documents x %d patterns: nested loops %d us, batch %d us on %d threads (%s)%n",
+                documents.size(), compiled.size(), loopNanos / 1000, batchNanos / 1000,
+                ForkJoinPool.commonPool().getParallelism(),
+                Arrays.deepEquals(expected, batched) ? "same results" : "DIFFERENT");
+    }
+
+    /**
+     * Repeats every query against a CachingMatcher around KMP with a small compiled
+     * pattern cache and a result cache, comparing the first (cold) and repeated
+     * (cached) times, checking the answers against plain KMP and printing the
+     * hit, miss and eviction counters
+     */
+    public static void testPatternCache(String baseText, String[] patterns) {
+        System.out.println("\n==== PATTERN AND RESULT CACHE ====");
+        String text = generateTextOfSize(baseText, 1_000_000);
+        StringMatcher plain = new KMPMatcher();
+        LruCache<CachingMatcher.PatternKey, CompiledPattern> compiledPatterns = CachingMatcher.compiledPatternCache(4);
+        LruCache<CachingMatcher.ResultKey, int[]> results = CachingMatcher.resultCache(1 << 20);
+        CachingMatcher cached = new CachingMatcher(plain, compiledPatterns, results);
+
+        boolean agrees = true;
+        for (int round = 0; round < 3; round++) {
+            for (String pattern : patterns) {
+                long startTime = System.nanoTime();
+                int[] matches = cached.findMatches(text, pattern);
+                long nanos = System.nanoTime() - startTime;
+                agrees &= Arrays.equals(matches, plain.findMatches(text, pattern))
+                        && cached.count(text, pattern) == matches.length
+                        && cached.indexOf(text, pattern, 1000) == plain.indexOf(text, pattern, 1000);
+                if (round != 1) {
+                    System.out.printf("%s \"%s\": %d matches in %d us%n",
+                            round == 0 ? "cold  " : "cached", pattern, matches.length, nanos / 1000);
+                }
+            }
+        }
+        System.out.println("Compiled patterns: " + compiledPatterns);
+        System.out.println("Results:           " + results);
+        System.out.println(agrees ? "Cached answers agree with KMP" : "Cached answers are DIFFERENT");
+
+        // Exact and case-insensitive matchers sharing one result cache must not see each other's results
+        String log = "Error error ERROR";
+        CachingMatcher exact = new CachingMatcher(new KMPMatcher(), compiledPatterns, results);
+        CachingMatcher folded = new CachingMatcher(new KMPMatcher(CaseFolding.ASCII), compiledPatterns, results);
+        int[] exactMatches = exact.findMatches(log, "error");
+        int[] foldedMatches = folded.findMatches(log, "error");
+        boolean separate = Arrays.equals(exactMatches, new int[]{6}) && Arrays.equals(foldedMatches, new int[]{0, 6, 12})
+                && Arrays.equals(exact.findMatches(log, "error"), new int[]{6});
+        System.out.printf("Shared result cache, exact %s and ASCII-folded %s (%s)%n", Arrays.toString(exactMatches),
+                Arrays.toString(foldedMatches), separate ? "kept apart" : "DIFFERENT");
+    }
+
+    /**
+     * Searches the raw UTF-8 bytes of the file with the byte matchers, without
+     * decoding them, and checks that the byte offsets translated to char offsets
+     * equal the matches found in the decoded String. The same is done on a
+     * sample with two-, three- and four-byte characters.
+     */
+    public static void testUtf8ByteSearch(String filePath, String[] patterns) throws IOException {
+        System.out.println("\n==== UTF-8 BYTE SEARCH ====");
+        long startTime = System.nanoTime();
+        byte[] bytes = loadBytesFromFile(filePath);
+        long loadNanos = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        long decodeNanos = System.nanoTime() - startTime;
+        System.out.printf("%d bytes read in %d us, decoding to %d chars takes another %d us%n",
+                bytes.length, loadNanos / 1000, text.length(), decodeNanos / 1000);
+
+        ByteMatcher[] byteMatchers = {new ByteBoyerMooreMatcher(), new ByteKMPMatcher()};
+        for (String pattern : patterns) {
+            int[] expected = new BoyerMooreMatcher().findMatches(text, pattern);
+            for (ByteMatcher byteMatcher : byteMatchers) {
+                startTime = System.nanoTime();
+                int[] matches = byteMatcher.findMatchesUtf8(bytes, pattern);
+                long byteNanos = System.nanoTime() - startTime;
+                boolean agrees = Arrays.equals(new Utf8OffsetTranslator(bytes).toCharOffsets(matches), expected);
+                System.out.printf("%-22s \"%s\": %d matches in %d us (%s)%n",
+                        byteMatcher.getClass().getSimpleName(), pattern, matches.length, byteNanos / 1000,
+                        agrees ? "agrees" : "DIFFERENT");
+            }
+        }
+
+        String sample = "na\u00efve caf\u00e9, \u65e5\u672c\u8a9e\u306e caf\u00e9 \ud83d\ude00 caf\u00e9 \u65e5\u672c".repeat(1000);
+        byte[] sampleBytes = sample.getBytes(StandardCharsets.UTF_8);
+        Utf8OffsetTranslator translator = new Utf8OffsetTranslator(sampleBytes);
+        boolean agrees = translator.charLength() == sample.length();
+        for (String pattern : new String[]{"caf\u00e9", "\u65e5\u672c", "\ud83d\ude00 c", "e"}) {
+            int[] matches = translator.toCharOffsets(new ByteBoyerMooreMatcher().findMatchesUtf8(sampleBytes, pattern));
+            agrees &= Arrays.equals(matches, new BoyerMooreMatcher().findMatches(sample, pattern));
+        }
+        System.out.printf("Non-ASCII sample of %d bytes, %d chars: %s%n", sampleBytes.length, sample.length(),
+                agrees ? "byte and char matches agree" : "DIFFERENT");
+    }
+
+    /**
+     * Searches a text of about one million characters case-insensitively with the
+     * folding variants of KMP, Boyer-Moore and Rabin-Karp, and compares them with
+     * lower-casing a copy of the text and searching it exactly. ASCII results are
+     * checked against that copy, Unicode results against String.regionMatches
+     * ignoring case.
+     */
+    public static void testCaseInsensitiveSearch(String baseText, String[] patterns) {
+        System.out.println("\n==== CASE-INSENSITIVE SEARCH ====");
+        String text = generateTextOfSize(baseText, 1_000_000);
+
+        for (String pattern : patterns) {
+            String upperPattern = pattern.toUpperCase();
+            long startTime = System.nanoTime();
+            String foldedText = CaseFolding.ASCII.fold(text);
+            int[] expected = new BoyerMooreMatcher().findMatches(foldedText, CaseFolding.ASCII.fold(upperPattern));
+            long copyNanos = System.nanoTime() - startTime;
+            System.out.printf("\"%s\": %d matches, lower-cased copy and exact search %d us%n",
+                    upperPattern, expected.length, copyNanos / 1000);
+
+            MatchBuffer unicodeExpected = new MatchBuffer();
+            for (int i = 0; i + upperPattern.length() <= text.length(); i++) {
+                if (text.regionMatches(true, i, upperPattern, 0, upperPattern.length())) {
+                    unicodeExpected.accept(i);
+                }
+            }
+
+            for (CaseFolding caseFolding : new CaseFolding[]{CaseFolding.ASCII, CaseFolding.UNICODE}) {
+                StringMatcher[] matchers = {new KMPMatcher(caseFolding), new BoyerMooreMatcher(caseFolding),
+                        new RabinKarpMatcher(RabinKarpMatcher.HashMode.MERSENNE_61, caseFolding)};
+                int[] reference = caseFolding == CaseFolding.ASCII ? expected : unicodeExpected.toArray();
+                for (StringMatcher matcher : matchers) {
+                    startTime = System.nanoTime();
+                    int[] matches = matcher.findMatches(text, upperPattern);
+                    long foldNanos = System.nanoTime() - startTime;
+                    System.out.printf("  %-18s %-8s %d us (%s)%n", matcher.getClass().getSimpleName(), caseFolding,
+                            foldNanos / 1000, Arrays.equals(matches, reference) ? "agrees" : "DIFFERENT");
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a suffix array index and an FM-index over the text once, saves both
+     * as index files and memory maps them back, and compares their answers and
+     * query times with scanning the text per query
+     */
+    public static void testTextIndexes(String text, String[] patterns) throws IOException {
+        System.out.println("\n==== TEXT INDEXES ====");
+        long startTime = System.nanoTime();
+        SuffixArrayIndex suffixArray = new SuffixArrayIndex(text);
+        System.out.printf("SuffixArrayIndex built over %d characters in %d us%n",
+                text.length(), (System.nanoTime() - startTime) / 1000);
+
+        startTime = System.nanoTime();
+        FMIndex fmIndex = new FMIndex(text);
+        System.out.printf("FMIndex built in %d us, %d bytes%n", (System.nanoTime() - startTime) / 1000,
+                fmIndex.sizeInBytes());
+
+        Path suffixArrayFile = Files.createTempFile("sa-index", ".idx");
+        Path fmIndexFile = Files.createTempFile("fm-index", ".idx");
+        try {
+            suffixArray.save(suffixArrayFile);
+            fmIndex.save(fmIndexFile);
+            startTime = System.nanoTime();
+            SuffixArrayIndex mappedSuffixArray = SuffixArrayIndex.load(suffixArrayFile);
+            System.out.printf("SuffixArrayIndex memory mapped from %d byte file in %d us%n",
+                    Files.size(suffixArrayFile), (System.nanoTime() - startTime) / 1000);
+            startTime = System.nanoTime();
+            FMIndex mapped = FMIndex.load(fmIndexFile);
+            System.out.printf("FMIndex memory mapped from %d byte file in %d us%n",
+                    Files.size(fmIndexFile), (System.nanoTime() - startTime) / 1000);
+            startTime = System.nanoTime();
+            FMIndex.load(fmIndexFile, true);
+            System.out.printf("FMIndex checksums verified in %d us%n", (System.nanoTime() - startTime) / 1000);
+
+            TextIndex[] indexes = {suffixArray, mappedSuffixArray, fmIndex, mapped};
+            String[] names = {"SuffixArrayIndex", "SuffixArrayIndex (mapped)", "FMIndex", "FMIndex (mapped)"};
+            for (String pattern : patterns) {
+                MatchResult scanned = new BoyerMooreMatcher().searchTimed(text, pattern);
+                for (int i = 0; i < indexes.length; i++) {
+                    StringMatcher indexMatcher = new IndexMatcher(indexes[i], text);
+                    MatchResult indexed = indexMatcher.searchTimed(text, pattern);
+                    System.out.printf("%-25s \"%s\": %d matches (%s), count %d, index %d ns vs. scan %d ns%n",
+                            names[i], pattern, indexed.getMatchCount(),
+                            Arrays.equals(indexed.getMatches(), scanned.getMatches()) ? "same as scan" : "DIFFERENT",
+                            indexes[i].count(pattern), indexed.getElapsedNanos(), scanned.getElapsedNanos());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(suffixArrayFile);
+            Files.deleteIfExists(fmIndexFile);
+        }
+    }
+
+    /**
+     * Streams a file through StreamingMatcher and compares the match count with
+     * KMPMatcher on the fully loaded text
+     */
+    public static void testStreamingMatcher(String filePath, String[] patterns) throws IOException {
+        System.out.println("\n==== STREAMING MATCHER ====");
+        String text = loadTextFromFile(filePath);
+
+        for (String pattern : patterns) {
+            int expected = new KMPMatcher().search(text, pattern).getMatchCount();
+            long[] firstMatch = {-1};
+            StreamingMatcher streaming = new StreamingMatcher(pattern, offset -> {
+                if (firstMatch[0] < 0) {
+                    firstMatch[0] = offset;
+                }
+            });
+
+            try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+                long bytes = streaming.feed(in);
+                streaming.finish();
+                System.out.printf("\"%s\": %d matches (KMP: %d), first at %d, %d bytes streamed%n",
+                        pattern, streaming.getMatchCount(), expected, firstMatch[0], bytes);
+            }
+        }
+    }
+
+    /**
+     * Searches for all patterns in one pass with Aho-Corasick, in one pass per distinct
+     * length with multi-pattern Rabin-Karp, and compares the per-pattern counts and
+     * time with one KMP pass per pattern
+     */
+    public static void compareMultiPattern(String text, String[] patterns) {
+        System.out.println("\n==== MULTI-PATTERN COMPARISON ====");
+        List<String> patternList = Arrays.asList(patterns);
+        CompiledPatternSet singlePass = new AhoCorasickMatcher().compileAll(patternList);
+        CompiledPatternSet hashSet = new RabinKarpMatcher().compileAll(patternList);
+        CompiledPatternSet loop = new SequentialPatternSet(new KMPMatcher(), patternList);
+
+        long startTime = System.nanoTime();
+        int[][] singlePassMatches = singlePass.findMatches(text);
+        long singlePassTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        int[][] hashSetMatches = hashSet.findMatches(text);
+        long hashSetTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        int[][] loopMatches = loop.findMatches(text);
+        long loopTime = System.nanoTime() - startTime;
+
+        for (int id = 0; id < patterns.length; id++) {
+            System.out.printf("\"%s\": %d matches (Rabin-Karp set: %d, KMP loop: %d)%n",
+                    patterns[id], singlePassMatches[id].length, hashSetMatches[id].length, loopMatches[id].length);
+        }
+        System.out.println("Aho-Corasick single pass: " + singlePassTime + " ns");
+        System.out.println("Rabin-Karp, one pass per length: " + hashSetTime + " ns");
+        System.out.println("KMP, one pass per pattern: " + loopTime + " ns");
+    }
+
     /**
      * To add the test size: 150, 10k, 100k and 1M
      */
@@ -130,7 +613,7 @@ public class TextLoaderTest {
     /**
      * Generate text of exact target size
      */
-    private static String generateTextOfSize(String baseText, int targetSize) {
+    static String generateTextOfSize(String baseText, int targetSize) {
         if (targetSize <= baseText.length()) {
             return baseText.substring(0, targetSize);
         }
@@ -170,7 +653,7 @@ public class TextLoaderTest {
     /**
      * Get appropriate test patterns based on text size
      */
-    private static String[] getPatternsForTextSize(String text, int textSize) {
+    static String[] getPatternsForTextSize(String text, int textSize) {
         switch (textSize) {
             case 150:
                 return new String[]{
@@ -212,30 +695,20 @@ public class TextLoaderTest {
     }
 
     /**
-     * Enhanced algorithm comparison with performance metrics
+     * Enhanced algorithm comparison with performance metrics.
+     * Each algorithm is warmed up and then timed over several fixed-length iterations
+     * (see TimerUtil), so the reported time is an average per search in microseconds
+     * rather than a single truncated millisecond reading. Use MatcherBenchmark for
+     * forked, publication-quality numbers.
      */
     private static void compareAlgorithmsScalability(String text, String pattern, int textSize) {
-        StringMatcher[] algorithms = {
-                new NaiveMatcher(),
-                new KMPMatcher(),
-                new BoyerMooreMatcher(),
-                new RabinKarpMatcher()
-        };
-
-        // Warm up JVM for larger tests
-        if (textSize >= 100000) {
-            for (StringMatcher alg : algorithms) {
-                alg.findMatches(text.substring(0, Math.min(1000, text.length())),
-                        pattern.substring(0, Math.min(10, pattern.length())));
-            }
-            System.gc(); // Garbage collection before timing
-        }
+        StringMatcher[] algorithms = createMatchers();
 
         System.out.printf("%-15s %10s %15s %12s %15s %12s%n",
-                "Algorithm", "Matches", "Comparisons", "Time(ms)", "Comp/ms", "Efficiency");
+                "Algorithm", "Matches", "Comparisons", "Time(us)", "Comp/us", "Efficiency");
         System.out.println("-".repeat(85));
 
-        long bestTime = Long.MAX_VALUE;
+        double bestTime = Double.MAX_VALUE;
         long fewestComparisons = Long.MAX_VALUE;
 
         // Collect results first
@@ -244,34 +717,40 @@ public class TextLoaderTest {
         for (int i = 0; i < algorithms.length; i++) {
             StringMatcher algorithm = algorithms[i];
 
-            long startTime = System.nanoTime();
-            int[] matches = algorithm.findMatches(text, pattern);
-            long endTime = System.nanoTime();
+            MatchResult result = algorithm.search(text, pattern);
+            long comparisons = result.getComparisons();
 
-            long timeMs = (endTime - startTime) / 1_000_000;
-            long comparisons = algorithm.getComparisons();
+            for (int w = 0; w < WARMUP_ITERATIONS; w++) {
+                TimerUtil.runIteration(() -> algorithm.findMatches(text, pattern).length, ITERATION_NANOS);
+            }
+            double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+            for (int r = 0; r < MEASURED_ITERATIONS; r++) {
+                nanosPerOp[r] = TimerUtil.runIteration(
+                        () -> algorithm.findMatches(text, pattern).length, ITERATION_NANOS).nanosPerOp();
+            }
+            double timeUs = TimerUtil.mean(nanosPerOp) / 1000.0;
 
             results[i] = new AlgorithmResult(
                     algorithm.getClass().getSimpleName(),
-                    matches.length,
+                    result.getMatchCount(),
                     comparisons,
-                    timeMs
+                    timeUs
             );
 
-            bestTime = Math.min(bestTime, timeMs);
+            bestTime = Math.min(bestTime, timeUs);
             fewestComparisons = Math.min(fewestComparisons, comparisons);
         }
 
         // Display results with efficiency indicators
         for (AlgorithmResult result : results) {
-            double compRate = result.timeMs > 0 ? (double) result.comparisons / result.timeMs : 0;
+            double compRate = result.timeUs > 0 ? result.comparisons / result.timeUs : 0;
             String efficiency = getEfficiencyIndicator(result, bestTime, fewestComparisons);
 
-            System.out.printf("%-15s %10d %15s %10d ms %12.0f %12s%n",
+            System.out.printf("%-15s %10d %15s %9.2f us %12.0f %12s%n",
                     result.name,
                     result.matches,
                     formatNumber(result.comparisons),
-                    result.timeMs,
+                    result.timeUs,
                     compRate,
                     efficiency);
         }
@@ -285,7 +764,7 @@ public class TextLoaderTest {
      */
     private static void analyzePatternCharacteristics(String pattern, int textSize) {
         double patternToTextRatio = (double) pattern.length() / textSize;
-        boolean isRepetitive = isPatternRepetitive(pattern);
+        boolean isRepetitive = PatternProfile.isRepetitive(pattern);
         boolean isLong = pattern.length() > 50;
 
         System.out.println("Pattern analysis:");
@@ -294,54 +773,37 @@ public class TextLoaderTest {
         System.out.printf("  - Long pattern: %s%n", isLong ? "Yes" : "No");
 
         // Predict best algorithm
-        String prediction = predictBestAlgorithm(pattern.length(), textSize, isRepetitive);
-        System.out.println("  - Predicted best: " + prediction);
+        AdaptiveMatcher.Workload workload = ADAPTIVE.classify(textSize, pattern);
+        System.out.println("  - Predicted best: " + ADAPTIVE.getEngine(workload).getClass().getSimpleName()
+                + " (" + workload + ")");
     }
 
     /**
-     * Simple pattern repetition detection
+     * Calibrates the adaptive matcher on this machine and prints its choices
      */
-    private static boolean isPatternRepetitive(String pattern) {
-        if (pattern.length() < 4) return false;
-
-        // Check if pattern has repeating substrings
-        for (int len = 1; len <= pattern.length() / 2; len++) {
-            String sub = pattern.substring(0, len);
-            if (pattern.startsWith(sub.repeat(pattern.length() / len))) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Predict best algorithm based on characteristics
-     */
-    private static String predictBestAlgorithm(int patternLen, int textSize, boolean isRepetitive) {
-        if (textSize < 1000 && patternLen < 10) {
-            return "Naive (small input)";
-        } else if (patternLen > 100) {
-            return "Boyer-Moore (long pattern)";
-        } else if (isRepetitive) {
-            return "KMP (repetitive pattern)";
-        } else if (patternLen > 20) {
-            return "Boyer-Moore (medium-long pattern)";
-        } else {
-            return "Rabin-Karp (efficient comparisons)";
+    private static void calibrateAdaptiveMatcher(String sampleText) {
+        System.out.println("\n===== CALIBRATING ADAPTIVE MATCHER =====");
+        long start = System.nanoTime();
+        ADAPTIVE.calibrate(sampleText);
+        System.out.printf("Calibrated in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        for (AdaptiveMatcher.Workload workload : AdaptiveMatcher.Workload.values()) {
+            System.out.printf("  %-15s -> %s%n", workload, ADAPTIVE.getEngine(workload).getClass().getSimpleName());
         }
+        System.out.println("  Small text below " + ADAPTIVE.getSmallTextLength() + " characters");
     }
 
     /**
      * Get efficiency indicator for results display
      */
-    private static String getEfficiencyIndicator(AlgorithmResult result, long bestTime, long fewestComparisons) {
-        boolean isFastest = result.timeMs <= bestTime * 1.1; // Within 10% of best time
+    private static String getEfficiencyIndicator(AlgorithmResult result, double bestTime, long fewestComparisons) {
+        boolean isFastest = result.timeUs <= bestTime * 1.1; // Within 10% of best time
         boolean isFewestComp = result.comparisons <= fewestComparisons * 1.1; // Within 10% of fewest comparisons
 
         if (isFastest && isFewestComp) return "★★★ BEST";
         else if (isFastest) return "★★ FAST";
         else if (isFewestComp) return "★★ EFFICIENT";
-        else if (result.timeMs <= bestTime * 2) return "★ GOOD";
+        else if (result.timeUs <= bestTime * 2) return "★ GOOD";
         else return "○ OK";
     }
 
@@ -374,13 +836,13 @@ public class TextLoaderTest {
         String name;
         int matches;
         long comparisons;
-        long timeMs;
+        double timeUs;
 
-        AlgorithmResult(String name, int matches, long comparisons, long timeMs) {
+        AlgorithmResult(String name, int matches, long comparisons, double timeUs) {
             this.name = name;
             this.matches = matches;
             this.comparisons = comparisons;
-            this.timeMs = timeMs;
+            this.timeUs = timeUs;
         }
     }
 
@@ -475,6 +937,7 @@ public class TextLoaderTest {
             for (String pattern : multiplePatterns) {
                 compareAlgorithms(mediumText, pattern);
             }
+            compareMultiPattern(mediumText, multiplePatterns);
 
             // Test with patterns that would cause hash collisions
             // This is a theoretical test and might not produce actual collisions
@@ -484,6 +947,39 @@ public class TextLoaderTest {
             compareAlgorithms(mediumText, pattern1);
             compareAlgorithms(mediumText, pattern2);
 
+            // One matcher instance shared by many threads
+            testSharedMatcherAcrossThreads(mediumText, comparisonPatterns);
+
+            // Search the file through memory mapping instead of a String
+            testMappedFileSearch("data/medium_text.txt", comparisonPatterns);
+
+            // Feed the file to the matcher as a stream of chunks
+            testStreamingMatcher("data/medium_text.txt", comparisonPatterns);
+
+            // Stop at the first match, or count without storing offsets
+            testEarlyExitSearch(mediumText, comparisonPatterns);
+
+            // Consume matches lazily and stop after the first few
+            testLazyMatches(mediumText, comparisonPatterns);
+
+            // Search every document for every pattern on the ForkJoinPool
+            testBatchSearch(mediumText, multiplePatterns);
+
+            // Search the UTF-8 bytes of the file without decoding them
+            testUtf8ByteSearch("data/medium_text.txt", comparisonPatterns);
+
+            // Ignore case by folding characters during the scan
+            testCaseInsensitiveSearch(mediumText, comparisonPatterns);
+
+            // Repeat queries through the compiled pattern and result caches
+            testPatternCache(mediumText, comparisonPatterns);
+
+            // Index the text once and answer every query from the index
+            testTextIndexes(mediumText, comparisonPatterns);
+
+            // Let the adaptive matcher measure the algorithms before predicting
+            calibrateAdaptiveMatcher(mediumText);
+
             // Add the scalability tests
             testScalability();
 
@@ -0,0 +1,207 @@
+/* 343 Project Program */
+
+package src.utils;
+import src.CompiledPattern;
+import src.MatchResult;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Searches every text of a batch for every compiled pattern on a work-stealing
+ * ForkJoinPool, and returns the results grouped per text.
+ *
+ * The (text, pattern) pairs are numbered text by text, and the cost of a pair is
+ * the length of its text. A task covering a range of pairs is split at the
+ * middle of its cost until it costs at most grainSize characters, so many small
+ * texts share one task while large texts get tasks of their own. A single pair
+ * that is still larger than the grain is split further into chunks of match
+ * start positions by ChunkedSearch, as ParallelMatcher does. Idle workers steal
+ * the remaining halves from busy ones.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class BatchSearcher {
+    // Characters of text searched by one task
+    public static final int DEFAULT_GRAIN_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int grainSize;
+
+    /**
+     * Uses the common ForkJoinPool and the default grain size
+     */
+    public BatchSearcher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_GRAIN_SIZE);
+    }
+
+    /**
+     * @param pool The pool the tasks are run on
+     * @param grainSize Characters of text below which a task is not split
+     */
+    public BatchSearcher(ForkJoinPool pool, int grainSize) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (grainSize < 1) {
+            throw new IllegalArgumentException("grainSize must be positive: " + grainSize);
+        }
+        this.pool = pool;
+        this.grainSize = grainSize;
+    }
+
+    /**
+     * Searches every text for every pattern
+     * @param texts The texts, identified by their iteration order
+     * @param patterns The compiled patterns, identified by their iteration order
+     * @return results[t][p] holds the matches and comparisons of pattern p in text t
+     */
+    public MatchResult[][] search(Collection<String> texts, Collection<? extends CompiledPattern> patterns) {
+        if (texts == null || patterns == null) {
+            throw new IllegalArgumentException("texts and patterns must not be null");
+        }
+        String[] textArray = texts.toArray(new String[0]);
+        CompiledPattern[] patternArray = patterns.toArray(new CompiledPattern[0]);
+        for (CompiledPattern pattern : patternArray) {
+            if (pattern == null) {
+                throw new IllegalArgumentException("patterns must not contain null");
+            }
+        }
+
+        // textCost[t] = total length of the texts before t
+        long[] textCost = new long[textArray.length + 1];
+        for (int t = 0; t < textArray.length; t++) {
+            textCost[t + 1] = textCost[t] + (textArray[t] == null ? 0 : textArray[t].length());
+        }
+
+        MatchResult[][] results = new MatchResult[textArray.length][patternArray.length];
+        long pairs = (long) textArray.length * patternArray.length;
+        if (pairs > 0) {
+            pool.invoke(new PairTask(new Batch(textArray, patternArray, textCost, results), 0, pairs));
+        }
+        return results;
+    }
+
+    /**
+     * Convenience form returning only the offsets
+     * @return matches[t][p] holds the starting indices of pattern p in text t
+     */
+    public int[][][] findMatches(Collection<String> texts, Collection<? extends CompiledPattern> patterns) {
+        MatchResult[][] results = search(texts, patterns);
+        int[][][] matches = new int[results.length][][];
+        for (int t = 0; t < results.length; t++) {
+            matches[t] = new int[results[t].length][];
+            for (int p = 0; p < results[t].length; p++) {
+                matches[t][p] = results[t][p].getMatches();
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return Characters of text below which a task is not split
+     */
+    public int getGrainSize() {
+        return grainSize;
+    }
+
+    /**
+     * Inputs and result slots shared by all tasks of one search
+     */
+    private static final class Batch {
+        private final String[] texts;
+        private final CompiledPattern[] patterns;
+        private final long[] textCost;
+        private final MatchResult[][] results;
+
+        Batch(String[] texts, CompiledPattern[] patterns, long[] textCost, MatchResult[][] results) {
+            this.texts = texts;
+            this.patterns = patterns;
+            this.textCost = textCost;
+            this.results = results;
+        }
+
+        /**
+         * @return Total text length of the pairs before pair
+         */
+        long costBefore(long pair) {
+            int text = (int) (pair / patterns.length);
+            int pattern = (int) (pair % patterns.length);
+            long cost = textCost[text] * patterns.length;
+            if (text < texts.length) {
+                cost += (long) pattern * (textCost[text + 1] - textCost[text]);
+            }
+            return cost;
+        }
+    }
+
+    /**
+     * Searches pairs [firstPair, lastPair), splitting at the middle of their cost.
+     * ForkJoinTask is Serializable, but tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private class PairTask extends RecursiveAction {
+        private final Batch batch;
+        private final long firstPair;
+        private final long lastPair;
+
+        PairTask(Batch batch, long firstPair, long lastPair) {
+            this.batch = batch;
+            this.firstPair = firstPair;
+            this.lastPair = lastPair;
+        }
+
+        @Override
+        protected void compute() {
+            long startCost = batch.costBefore(firstPair);
+            long cost = batch.costBefore(lastPair) - startCost;
+            if (lastPair - firstPair == 1) {
+                searchPair(firstPair, cost);
+                return;
+            }
+            if (cost <= grainSize) {
+                for (long pair = firstPair; pair < lastPair; pair++) {
+                    searchSequentially(pair);
+                }
+                return;
+            }
+
+            // First pair at or after the cost midpoint, keeping both halves non-empty
+            long middleCost = startCost + cost / 2;
+            long low = firstPair + 1;
+            long high = lastPair - 1;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (batch.costBefore(mid) < middleCost) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            invokeAll(new PairTask(batch, firstPair, low), new PairTask(batch, low, lastPair));
+        }
+
+        private void searchSequentially(long pair) {
+            int text = (int) (pair / batch.patterns.length);
+            int pattern = (int) (pair % batch.patterns.length);
+            batch.results[text][pattern] = batch.patterns[pattern].search(batch.texts[text]);
+        }
+
+        /**
+         * Splits one large pair into chunks of match start positions
+         */
+        private void searchPair(long pair, long cost) {
+            int text = (int) (pair / batch.patterns.length);
+            int pattern = (int) (pair % batch.patterns.length);
+            String content = batch.texts[text];
+            CompiledPattern compiled = batch.patterns[pattern];
+            int m = compiled.pattern().length();
+            // An empty pattern also matches at the text length, which no chunk owns
+            if (cost <= grainSize || m == 0 || m > content.length()) {
+                searchSequentially(pair);
+                return;
+            }
+            batch.results[text][pattern] = ChunkedSearch.search(pool, compiled, content, grainSize);
+        }
+    }
+}
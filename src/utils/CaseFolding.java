@@ -0,0 +1,59 @@
+/* 343 Project Program */
+
+package src.utils;
+
+/**
+ * How characters are folded before they are compared, for case-insensitive search.
+ * Matchers fold the pattern once when it is compiled and every text character
+ * as the scan reads it, so no lower-cased copy of the text is made. Folding is
+ * one char to one char, so match offsets are offsets in the original text;
+ * foldings that change the length, such as German sharp s to "ss", are not applied.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public enum CaseFolding {
+    /** Characters are compared exactly */
+    NONE,
+    /** Only 'A' to 'Z' are folded to 'a' to 'z'; the cheapest folding, meant for logs and ASCII data */
+    ASCII,
+    /**
+     * Every char is folded through its upper and then its lower case, as
+     * String.equalsIgnoreCase compares them; supplementary characters are not folded
+     */
+    UNICODE;
+
+    /**
+     * @param c A character
+     * @return The representative of the characters that compare equal to c
+     */
+    public char fold(char c) {
+        // Identity checks rather than a switch, which would read a lookup table on every call
+        if (this == NONE) {
+            return c;
+        }
+        if (this == ASCII || c < 0x80) {
+            return foldAscii(c);
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * @param s A string, typically a pattern
+     * @return s with every character folded
+     */
+    public String fold(String s) {
+        if (this == NONE) {
+            return s;
+        }
+        char[] folded = new char[s.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(s.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private static char foldAscii(char c) {
+        // Characters below 'A' wrap around to large values, so one comparison selects 'A' to 'Z'
+        return (char) (c - 'A') < 26 ? (char) (c | 0x20) : c;
+    }
+}
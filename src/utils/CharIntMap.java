@@ -0,0 +1,112 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.util.Arrays;
+
+/**
+ * Map from char keys to int values covering the whole UTF-16 range.
+ * Characters below 256 are looked up in a direct table; higher characters go
+ * to a small open-addressing table with linear probing, sized by the number of
+ * distinct high characters stored rather than by the 65536-character alphabet.
+ * Keys that were never stored map to the default value.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class CharIntMap {
+    // Characters below this limit are stored in the direct table
+    private static final int DIRECT_SIZE = 256;
+    // Marks an empty slot of the high table; char 0 always lives in the direct table
+    private static final char EMPTY = 0;
+
+    private final int defaultValue;
+    private final int[] direct;
+    private char[] keys;
+    private int[] values;
+    private int mask;
+    private int size; // high characters stored
+
+    /**
+     * @param defaultValue Value returned for characters that were never stored
+     */
+    public CharIntMap(int defaultValue) {
+        this.defaultValue = defaultValue;
+        this.direct = new int[DIRECT_SIZE];
+        Arrays.fill(direct, defaultValue);
+        allocate(8);
+    }
+
+    /**
+     * Returns the value stored for c
+     * @param c The character to look up
+     * @return The value, or the default value if c is not present
+     */
+    public int get(char c) {
+        if (c < DIRECT_SIZE) {
+            return direct[c];
+        }
+        if (size == 0) {
+            return defaultValue;
+        }
+
+        int slot = slot(c);
+        char key;
+        while ((key = keys[slot]) != EMPTY) {
+            if (key == c) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Stores value for c, replacing any previous value
+     * @param c The character
+     * @param value The value
+     */
+    public void put(char c, int value) {
+        if (c < DIRECT_SIZE) {
+            direct[c] = value;
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+
+        int slot = slot(c);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == c) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = c;
+        values[slot] = value;
+        size++;
+    }
+
+    private int slot(char c) {
+        // Fibonacci hashing spreads neighbouring code points (one script's block) across the table
+        int mixed = c * 0x9E3779B9;
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new char[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        char[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
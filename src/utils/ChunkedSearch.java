@@ -0,0 +1,162 @@
+/* 343 Project Program */
+
+package src.utils;
+import src.CompiledPattern;
+import src.MatchResult;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Searches one large text for a compiled pattern on a ForkJoinPool by splitting
+ * its match start positions into chunks of chunkSize. Each chunk is searched
+ * together with the (m-1) characters that follow it, so a match crossing a
+ * chunk boundary is found exactly once, by the chunk it starts in. Used by
+ * ParallelMatcher and BatchSearcher.
+ *
+ * Chunk results are stored unchanged and joined once at the end, shifting each
+ * chunk's offsets by its start as they are copied. CompiledPattern has no
+ * bounded scan, so every chunk is copied out of the text with substring: each
+ * character is copied once per search, and only the chunks being searched at a
+ * time are alive, about (parallelism * chunkSize) characters.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class ChunkedSearch {
+    private ChunkedSearch() {
+    }
+
+    /**
+     * Finds all matches of compiled in text. Called from a task of a pool, the
+     * chunks run on that pool; otherwise they run on pool.
+     * @param pool The pool used when not called from a ForkJoinPool
+     * @param compiled A non-empty pattern no longer than text
+     * @param text The text to search within
+     * @param chunkSize Number of match start positions per task
+     * @return The matches and the comparisons and collisions summed over all chunks
+     */
+    public static MatchResult search(ForkJoinPool pool, CompiledPattern compiled, String text, int chunkSize) {
+        MatchResult[] chunkResults = new MatchResult[chunkCount(compiled, text, chunkSize)];
+        run(pool, new SearchTask(compiled, text, chunkSize, chunkResults, 0, chunkResults.length));
+
+        int total = 0;
+        long comparisons = 0;
+        long collisions = 0;
+        for (MatchResult result : chunkResults) {
+            total += result.getMatchCount();
+            comparisons += result.getComparisons();
+            collisions += result.getCollisions();
+        }
+        int[] matches = new int[total];
+        int size = 0;
+        for (int chunk = 0; chunk < chunkResults.length; chunk++) {
+            int start = chunk * chunkSize;
+            for (int position : chunkResults[chunk].getMatches()) {
+                matches[size++] = start + position;
+            }
+        }
+        return new MatchResult(matches, comparisons, -1, collisions);
+    }
+
+    /**
+     * Counts the matches of compiled in text without storing their offsets
+     * @param pool The pool used when not called from a ForkJoinPool
+     * @param compiled A non-empty pattern no longer than text
+     * @param text The text to search within
+     * @param chunkSize Number of match start positions per task
+     * @return Number of matches
+     */
+    public static int count(ForkJoinPool pool, CompiledPattern compiled, String text, int chunkSize) {
+        return run(pool, new CountTask(compiled, text, chunkSize, 0, chunkCount(compiled, text, chunkSize)));
+    }
+
+    private static <T> T run(ForkJoinPool pool, ForkJoinTask<T> task) {
+        return ForkJoinTask.inForkJoinPool() ? task.invoke() : pool.invoke(task);
+    }
+
+    private static int chunkCount(CompiledPattern compiled, String text, int chunkSize) {
+        long positions = (long) text.length() - compiled.pattern().length() + 1;
+        return (int) ((positions + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Copies chunk out of text with the m-1 characters after it, so boundary-crossing matches are seen
+     */
+    private static String chunkText(CompiledPattern compiled, String text, int chunkSize, int chunk) {
+        int start = chunk * chunkSize;
+        int end = (int) Math.min(text.length(), (long) start + chunkSize + compiled.pattern().length() - 1);
+        return text.substring(start, end);
+    }
+
+    /**
+     * Searches chunks [firstChunk, lastChunk), splitting in half until a single
+     * chunk remains, and stores each chunk's result with chunk-relative offsets.
+     * ForkJoinTask is Serializable, but tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static final class SearchTask extends RecursiveAction {
+        private final CompiledPattern compiled;
+        private final String text;
+        private final int chunkSize;
+        private final MatchResult[] chunkResults;
+        private final int firstChunk;
+        private final int lastChunk;
+
+        SearchTask(CompiledPattern compiled, String text, int chunkSize, MatchResult[] chunkResults,
+                   int firstChunk, int lastChunk) {
+            this.compiled = compiled;
+            this.text = text;
+            this.chunkSize = chunkSize;
+            this.chunkResults = chunkResults;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk == 1) {
+                chunkResults[firstChunk] = compiled.search(chunkText(compiled, text, chunkSize, firstChunk));
+                return;
+            }
+
+            int middle = (firstChunk + lastChunk) >>> 1;
+            invokeAll(new SearchTask(compiled, text, chunkSize, chunkResults, firstChunk, middle),
+                    new SearchTask(compiled, text, chunkSize, chunkResults, middle, lastChunk));
+        }
+    }
+
+    /**
+     * Counts the matches starting in chunks [firstChunk, lastChunk)
+     */
+    @SuppressWarnings("serial")
+    private static final class CountTask extends RecursiveTask<Integer> {
+        private final CompiledPattern compiled;
+        private final String text;
+        private final int chunkSize;
+        private final int firstChunk;
+        private final int lastChunk;
+
+        CountTask(CompiledPattern compiled, String text, int chunkSize, int firstChunk, int lastChunk) {
+            this.compiled = compiled;
+            this.text = text;
+            this.chunkSize = chunkSize;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (lastChunk - firstChunk == 1) {
+                return compiled.count(chunkText(compiled, text, chunkSize, firstChunk));
+            }
+
+            int middle = (firstChunk + lastChunk) >>> 1;
+            CountTask left = new CountTask(compiled, text, chunkSize, firstChunk, middle);
+            CountTask right = new CountTask(compiled, text, chunkSize, middle, lastChunk);
+            left.fork();
+            int rightCount = right.compute();
+            return left.join() + rightCount;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary container for index structures, written once and opened by
+ * memory mapping with no deserialization step.
+ *
+ * Layout, little-endian throughout:
+ * a 64-byte header (magic, container version, index kind and kind version,
+ * section count, CRC32 of the section table, file size, CRC32 of the header),
+ * then a table of 32-byte entries (section id, element width, offset, byte
+ * length, CRC32 of the data), then the sections themselves, each starting on a
+ * 64-byte boundary. Sections hold arrays of bytes, chars, ints or longs and are
+ * returned by open() as typed views over their own mapping, so sections of up
+ * to 2GB each make up files of any size.
+ *
+ * open() checks the header and section table, which costs one small read;
+ * verify() checks the CRC32 of every section, which reads the whole file.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class IndexFile {
+    public static final int MAGIC = 0x49445846; // "IDXF"
+    public static final int FORMAT_VERSION = 1;
+
+    private static final ByteOrder FILE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int HEADER_BYTES = 64;
+    private static final int ENTRY_BYTES = 32;
+    private static final int ALIGNMENT = 64;
+    // Largest section a single mapping can hold
+    private static final long MAX_SECTION_BYTES = Integer.MAX_VALUE;
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    private final Path file;
+    private final int kind;
+    private final int kindVersion;
+    private final Map<Integer, Section> sections;
+    private final long size;
+
+    private IndexFile(Path file, int kind, int kindVersion, Map<Integer, Section> sections, long size) {
+        this.file = file;
+        this.kind = kind;
+        this.kindVersion = kindVersion;
+        this.sections = sections;
+        this.size = size;
+    }
+
+    /**
+     * Maps an index file after checking its header and section table.
+     * The file must not be modified while it is open.
+     * @param file The index file
+     * @return The opened file, whose sections are read in place
+     * @throws IOException if the file cannot be read or its header or table is damaged
+     */
+    public static IndexFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an index file");
+            }
+            if (crc(header, 0, HEADER_BYTES - 4) != header.getInt(HEADER_BYTES - 4)) {
+                throw new IOException(file + " has a damaged header");
+            }
+            int version = header.getInt(4);
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file + " uses unsupported index file version " + version);
+            }
+            int kind = header.getInt(8);
+            int kindVersion = header.getInt(12);
+            int sectionCount = header.getInt(16);
+            int tableCrc = header.getInt(20);
+            if (header.getLong(24) != fileSize) {
+                throw new IOException(file + " has " + fileSize + " bytes, expected " + header.getLong(24));
+            }
+
+            if (sectionCount < 0 || HEADER_BYTES + (long) sectionCount * ENTRY_BYTES > fileSize) {
+                throw new IOException(file + " has a damaged section table");
+            }
+            ByteBuffer table = read(channel, HEADER_BYTES, sectionCount * ENTRY_BYTES);
+            if (crc(table, 0, table.capacity()) != tableCrc) {
+                throw new IOException(file + " has a damaged section table");
+            }
+
+            Map<Integer, Section> sections = new HashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                int entry = i * ENTRY_BYTES;
+                int id = table.getInt(entry);
+                int width = table.getInt(entry + 4);
+                long offset = table.getLong(entry + 8);
+                long length = table.getLong(entry + 16);
+                int checksum = table.getInt(entry + 24);
+                if (offset < 0 || length < 0 || length > MAX_SECTION_BYTES || offset + length > fileSize
+                        || !isWidth(width) || length % width != 0) {
+                    throw new IOException(file + " has a damaged entry for section " + id);
+                }
+                ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(FILE_ORDER);
+                if (sections.put(id, new Section(width, data, checksum)) != null) {
+                    throw new IOException(file + " has section " + id + " twice");
+                }
+            }
+            return new IndexFile(file, kind, kindVersion, sections, fileSize);
+        }
+    }
+
+    /**
+     * @return The kind of index stored, chosen by the writer
+     */
+    public int kind() {
+        return kind;
+    }
+
+    /**
+     * @return The version of the stored index's own layout
+     */
+    public int kindVersion() {
+        return kindVersion;
+    }
+
+    /**
+     * @return Size of the file in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Checks that the file holds the expected kind and version of index
+     * @throws IOException if it does not
+     */
+    public void requireKind(int expectedKind, int expectedVersion) throws IOException {
+        if (kind != expectedKind) {
+            throw new IOException(file + " holds index kind " + Integer.toHexString(kind)
+                    + ", expected " + Integer.toHexString(expectedKind));
+        }
+        if (kindVersion != expectedVersion) {
+            throw new IOException(file + " holds index version " + kindVersion + ", expected " + expectedVersion);
+        }
+    }
+
+    /**
+     * @param id A section id
+     * @return Whether the file has the section
+     */
+    public boolean has(int id) {
+        return sections.containsKey(id);
+    }
+
+    /**
+     * Reads every section and compares it with its stored CRC32
+     * @throws IOException if a section is damaged
+     */
+    public void verify() throws IOException {
+        for (Map.Entry<Integer, Section> entry : sections.entrySet()) {
+            Section section = entry.getValue();
+            if (crc(section.data, 0, section.data.capacity()) != section.checksum) {
+                throw new IOException(file + " has a damaged section " + entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return Read-only view of a byte section
+     * @throws IOException if the section is missing or holds another type
+     */
+    public ByteBuffer bytes(int id) throws IOException {
+        return section(id, Byte.BYTES).slice().order(FILE_ORDER);
+    }
+
+    /**
+     * @return Read-only view of a char section
+     * @throws IOException if the section is missing or holds another type
+     */
+    public CharBuffer chars(int id) throws IOException {
+        return section(id, Character.BYTES).asCharBuffer();
+    }
+
+    /**
+     * @return Read-only view of an int section
+     * @throws IOException if the section is missing or holds another type
+     */
+    public IntBuffer ints(int id) throws IOException {
+        return section(id, Integer.BYTES).asIntBuffer();
+    }
+
+    /**
+     * @return Read-only view of a long section
+     * @throws IOException if the section is missing or holds another type
+     */
+    public LongBuffer longs(int id) throws IOException {
+        return section(id, Long.BYTES).asLongBuffer();
+    }
+
+    /**
+     * Rebuilds a bit vector from the words and rank sections written by Writer.putBitVector()
+     * @param wordsId Section holding the packed bits
+     * @param ranksId Section holding the rank directory
+     * @param length Number of bits
+     * @return The vector, reading both sections in place
+     * @throws IOException if a section is missing or does not match length
+     */
+    public RankBitVector bitVector(int wordsId, int ranksId, int length) throws IOException {
+        LongBuffer words = longs(wordsId);
+        IntBuffer ranks = ints(ranksId);
+        if (words.remaining() != RankBitVector.wordCount(length) || ranks.remaining() != RankBitVector.rankCount(length)) {
+            throw new IOException(file + " has a bit vector that does not hold " + length + " bits");
+        }
+        return new RankBitVector(words, ranks, length);
+    }
+
+    private ByteBuffer section(int id, int width) throws IOException {
+        Section section = sections.get(id);
+        if (section == null) {
+            throw new IOException(file + " has no section " + id);
+        }
+        if (section.width != width) {
+            throw new IOException(file + " section " + id + " holds " + section.width
+                    + "-byte elements, expected " + width);
+        }
+        return section.data.duplicate().order(FILE_ORDER);
+    }
+
+    private static boolean isWidth(int width) {
+        return width == Byte.BYTES || width == Character.BYTES || width == Integer.BYTES || width == Long.BYTES;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length).order(FILE_ORDER);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) < 0) {
+                throw new IOException("Index file is truncated");
+            }
+        }
+        return bytes.flip();
+    }
+
+    private static int crc(ByteBuffer bytes, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * One mapped section and its stored checksum
+     */
+    private static final class Section {
+        private final int width;
+        private final ByteBuffer data;
+        private final int checksum;
+
+        Section(int width, ByteBuffer data, int checksum) {
+            this.width = width;
+            this.data = data;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Collects sections and writes them as an index file. The buffers are not
+     * copied, so they must not change until write() returns.
+     */
+    public static final class Writer {
+        private final int kind;
+        private final int kindVersion;
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<Buffer> contents = new ArrayList<>();
+        private final List<Integer> widths = new ArrayList<>();
+
+        /**
+         * @param kind Identifies the kind of index, e.g. a four-character tag
+         * @param kindVersion Version of that index's own section layout
+         */
+        public Writer(int kind, int kindVersion) {
+            this.kind = kind;
+            this.kindVersion = kindVersion;
+        }
+
+        public Writer putBytes(int id, ByteBuffer values) {
+            return add(id, values, Byte.BYTES);
+        }
+
+        public Writer putChars(int id, CharSequence values) {
+            return add(id, CharBuffer.wrap(values), Character.BYTES);
+        }
+
+        public Writer putInts(int id, IntBuffer values) {
+            return add(id, values, Integer.BYTES);
+        }
+
+        public Writer putInts(int id, int... values) {
+            return add(id, IntBuffer.wrap(values), Integer.BYTES);
+        }
+
+        public Writer putLongs(int id, LongBuffer values) {
+            return add(id, values, Long.BYTES);
+        }
+
+        /**
+         * Adds a bit vector as two sections, read back with IndexFile.bitVector()
+         */
+        public Writer putBitVector(int wordsId, int ranksId, RankBitVector vector) {
+            putLongs(wordsId, vector.words());
+            return putInts(ranksId, vector.ranks());
+        }
+
+        /**
+         * Writes the file next to its destination and moves it into place, so
+         * a reader never sees a partly written index
+         * @param file The index file to create or replace
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Path file) throws IOException {
+            int count = ids.size();
+            ByteBuffer table = ByteBuffer.allocate(count * ENTRY_BYTES).order(FILE_ORDER);
+            long offset = align(HEADER_BYTES + (long) count * ENTRY_BYTES);
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = offset;
+                offset = align(offset + (long) contents.get(i).remaining() * widths.get(i));
+            }
+            long fileSize = count == 0 ? HEADER_BYTES
+                    : offsets[count - 1] + (long) contents.get(count - 1).remaining() * widths.get(count - 1);
+
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(FILE_ORDER);
+                for (int i = 0; i < count; i++) {
+                    int width = widths.get(i);
+                    long length = (long) contents.get(i).remaining() * width;
+                    int checksum = writeSection(channel, offsets[i], contents.get(i), width, chunk);
+                    table.putInt(ids.get(i)).putInt(width).putLong(offsets[i]).putLong(length)
+                            .putInt(checksum).putInt(0);
+                }
+                table.flip();
+                if (channel.size() < fileSize) {
+                    // Empty sections at the end leave nothing written up to their offset
+                    writeFully(channel, ByteBuffer.allocate((int) (fileSize - channel.size())), channel.size());
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(FILE_ORDER);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(kind).putInt(kindVersion)
+                        .putInt(count).putInt(crc(table, 0, table.limit())).putLong(fileSize);
+                header.putInt(HEADER_BYTES - 4, crc(header, 0, HEADER_BYTES - 4));
+                header.clear();
+
+                writeFully(channel, header, 0);
+                writeFully(channel, table, HEADER_BYTES);
+                channel.force(true);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private Writer add(int id, Buffer values, int width) {
+            if (values == null) {
+                throw new IllegalArgumentException("section " + id + " must not be null");
+            }
+            if (ids.contains(id)) {
+                throw new IllegalArgumentException("section " + id + " was already added");
+            }
+            if ((long) values.remaining() * width > MAX_SECTION_BYTES) {
+                throw new IllegalArgumentException("section " + id + " is larger than " + MAX_SECTION_BYTES + " bytes");
+            }
+            ids.add(id);
+            contents.add(values.duplicate());
+            widths.add(width);
+            return this;
+        }
+
+        /**
+         * Streams one section through chunk in file byte order
+         * @return CRC32 of the bytes written
+         */
+        private static int writeSection(FileChannel channel, long position, Buffer values, int width,
+                                        ByteBuffer chunk) throws IOException {
+            CRC32 crc = new CRC32();
+            Buffer source = values.duplicate();
+            int perChunk = CHUNK_BYTES / width;
+            while (source.hasRemaining()) {
+                int n = Math.min(perChunk, source.remaining());
+                chunk.clear();
+                int from = source.position();
+                Buffer part = source.slice().limit(n);
+                if (part instanceof ByteBuffer bytes) {
+                    chunk.put(bytes);
+                } else if (part instanceof CharBuffer chars) {
+                    chunk.asCharBuffer().put(chars);
+                } else if (part instanceof IntBuffer ints) {
+                    chunk.asIntBuffer().put(ints);
+                } else {
+                    chunk.asLongBuffer().put((LongBuffer) part);
+                }
+                source.position(from + n);
+                chunk.position(0).limit(n * width);
+
+                crc.update(chunk.duplicate());
+                position += writeFully(channel, chunk, position);
+            }
+            return (int) crc.getValue();
+        }
+
+        private static int writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+            int written = 0;
+            while (bytes.hasRemaining()) {
+                written += channel.write(bytes, position + written);
+            }
+            return written;
+        }
+    }
+}
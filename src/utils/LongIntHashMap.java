@@ -0,0 +1,106 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to non-negative int values.
+ * Keys and values live in two parallel primitive arrays with linear probing,
+ * so lookups neither box nor allocate. A value of -1 marks an empty slot,
+ * which is why only non-negative values can be stored.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class LongIntHashMap {
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedSize Number of entries that fit without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value stored for key
+     * @param key The key to look up
+     * @return The value, or -1 if key is not present
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Stores value for key, replacing any previous value
+     * @param key The key
+     * @param value A non-negative value
+     * @return The previous value, or -1 if key was not present
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be non-negative: " + value);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+
+        int slot = slot(key);
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return EMPTY;
+    }
+
+    /**
+     * @return Number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads keys that differ only in their low bits
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
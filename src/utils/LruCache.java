@@ -0,0 +1,276 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe cache bounded by the total weight of its values, evicting the
+ * least recently used entries first. Keys are spread over a power-of-two number
+ * of segments, each an access-ordered LinkedHashMap under its own lock, so
+ * threads working on different keys rarely wait for each other. Each segment
+ * holds an equal share of the maximum weight, which makes the eviction order
+ * approximately rather than strictly LRU across the whole cache.
+ *
+ * Values are computed outside the lock: two threads missing on the same key at
+ * once may both compute it, and the first one stored is kept. Hits, misses and
+ * evictions are counted for monitoring.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class LruCache<K, V> {
+    // Most segments used, and least weight a segment is given when there are several
+    private static final int MAX_SEGMENTS = 16;
+    private static final long MIN_SEGMENT_WEIGHT = 64;
+
+    private final Segment<K, V>[] segments;
+    private final ToLongFunction<? super V> weigher;
+    private final long maxWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cache holding at most maxEntries values
+     * @param maxEntries Number of entries kept
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, value -> 1);
+    }
+
+    /**
+     * @param maxWeight Total weight of the values kept
+     * @param weigher Weight of a value, at least 1; a value heavier than a segment's share is not stored
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("weigher must not be null");
+        }
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && maxWeight / (segmentCount * 2L) >= MIN_SEGMENT_WEIGHT) {
+            segmentCount *= 2;
+        }
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so the shares add up to maxWeight
+            segments[i] = new Segment<>(maxWeight / segmentCount + (i < maxWeight % segmentCount ? 1 : 0));
+        }
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @param key The key to look up
+     * @return The cached value, or null if there is none; a hit marks it most recently used
+     */
+    public V get(K key) {
+        V value = segmentFor(key).get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value for key, computing and storing it on a miss
+     * @param key The key to look up
+     * @param loader Computes the value from the key; it must not return null
+     * @return The cached or newly computed value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        V value = segment.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        V computed = loader.apply(key);
+        if (computed == null) {
+            throw new IllegalArgumentException("loader returned null for " + key);
+        }
+        return segment.putIfAbsent(key, computed, weigher.applyAsLong(computed), evictions);
+    }
+
+    /**
+     * Stores value for key, replacing any previous value
+     * @param key The key
+     * @param value The value, not null
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        segmentFor(key).put(key, value, weigher.applyAsLong(value), evictions);
+    }
+
+    /**
+     * Removes every entry; the counters are kept
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return Number of entries currently cached
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return Total weight of the entries currently cached
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    /**
+     * @return Largest total weight the cache holds
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * @return Lookups answered from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Lookups that found no entry
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Entries removed to make room for others
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Share of the lookups that were hits, or 0 before the first lookup
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("entries=%d weight=%d/%d hits=%d misses=%d evictions=%d hitRate=%.3f",
+                size(), weight(), maxWeight, hits(), misses(), evictions(), hitRate());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        // Mix the high bits in, since the low bits of some hash codes are poorly spread
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * One lock-protected, access-ordered part of the cache
+     */
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxWeight;
+        private long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized V get(K key) {
+            Entry<V> entry = entries.get(key);
+            return entry == null ? null : entry.value;
+        }
+
+        synchronized V putIfAbsent(K key, V value, long valueWeight, LongAdder evictions) {
+            Entry<V> existing = entries.get(key);
+            if (existing != null) {
+                return existing.value;
+            }
+            store(key, value, valueWeight, evictions);
+            return value;
+        }
+
+        synchronized void put(K key, V value, long valueWeight, LongAdder evictions) {
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            store(key, value, valueWeight, evictions);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+
+        private void store(K key, V value, long valueWeight, LongAdder evictions) {
+            if (valueWeight < 1) {
+                throw new IllegalArgumentException("weight must be positive: " + valueWeight);
+            }
+            if (valueWeight > maxWeight) {
+                return;
+            }
+            // Evict from the least recently used end until the value fits
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (weight + valueWeight > maxWeight) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+            entries.put(key, new Entry<>(value, valueWeight));
+            weight += valueWeight;
+        }
+    }
+
+    /**
+     * A cached value and the weight it was stored with
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
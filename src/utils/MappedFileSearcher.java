@@ -0,0 +1,136 @@
+/* 343 Project Program */
+
+package src.utils;
+import src.ByteMatcher;
+import src.algorithms.ByteBoyerMooreMatcher;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Searches a file through memory-mapped windows instead of loading it into a String.
+ * The file is mapped read-only in windows of at most windowSize bytes; consecutive
+ * windows overlap by (pattern length - 1) bytes so that a match crossing a window
+ * boundary is reported once, by the window it starts in. Offsets are longs, so
+ * files larger than 2GB can be searched, and the heap footprint stays near zero
+ * because the operating system pages the file in and out as needed.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public class MappedFileSearcher {
+    // Bytes mapped per window (a single MappedByteBuffer is limited to 2GB)
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final ByteMatcher matcher;
+    private final int windowSize;
+
+    /**
+     * Searches with byte-level Boyer-Moore and the default window size
+     */
+    public MappedFileSearcher() {
+        this(new ByteBoyerMooreMatcher(), DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param matcher The byte algorithm used on each window
+     * @param windowSize Number of match start positions covered by one mapping
+     */
+    public MappedFileSearcher(ByteMatcher matcher, int windowSize) {
+        if (matcher == null) {
+            throw new IllegalArgumentException("matcher must not be null");
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        }
+        this.matcher = matcher;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Finds all occurrences of pattern in the file, passing each byte offset to sink in increasing order
+     * @param file The file to search
+     * @param pattern The bytes to search for
+     * @param sink Receives the byte offset of every match
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public void search(Path file, byte[] pattern, LongConsumer sink) throws IOException {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        int m = pattern.length;
+        if ((long) windowSize + m - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("pattern too long for window size " + windowSize);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Edge case: empty pattern matches at every position
+            if (m == 0) {
+                for (long i = 0; i <= size; i++) {
+                    sink.accept(i);
+                }
+                return;
+            }
+
+            for (long start = 0; start <= size - m; start += windowSize) {
+                // Map the window plus the m-1 bytes after it so boundary-crossing matches are seen
+                long length = Math.min(size - start, (long) windowSize + m - 1);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+                final long base = start;
+                matcher.findMatches(window, pattern, offset -> sink.accept(base + offset));
+            }
+        }
+    }
+
+    /**
+     * Finds all occurrences of pattern in the file
+     * @param file The file to search
+     * @param pattern The bytes to search for
+     * @return Byte offsets of every match, in increasing order
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public long[] findMatches(Path file, byte[] pattern) throws IOException {
+        LongCollector matches = new LongCollector();
+        search(file, pattern, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * Counts the occurrences of pattern in the file without storing their offsets
+     * @param file The file to search
+     * @param pattern The bytes to search for
+     * @return Number of matches
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public long count(Path file, byte[] pattern) throws IOException {
+        long[] count = {0};
+        search(file, pattern, offset -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Growable array of long offsets
+     */
+    private static final class LongCollector implements LongConsumer {
+        private long[] data = new long[16];
+        private int size;
+
+        @Override
+        public void accept(long offset) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, data.length << 1);
+            }
+            data[size++] = offset;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
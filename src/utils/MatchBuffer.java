@@ -0,0 +1,78 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable buffer of primitive int match positions.
+ * Used by the matchers in place of ArrayList&lt;Integer&gt; so that recording
+ * a match never boxes the offset; the backing array only grows by doubling.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class MatchBuffer implements IntConsumer {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] data;
+    private int size;
+
+    public MatchBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity Number of matches that fit before the first resize
+     */
+    public MatchBuffer(int initialCapacity) {
+        data = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Appends a match position
+     * @param position Starting index of the match
+     */
+    public void add(int position) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length << 1);
+        }
+        data[size++] = position;
+    }
+
+    @Override
+    public void accept(int position) {
+        add(position);
+    }
+
+    /**
+     * @return Number of positions recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index Index into the buffer
+     * @return The position stored at index
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return data[index];
+    }
+
+    /**
+     * Empties the buffer but keeps its capacity, so it can be reused across searches
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return A new array holding exactly the recorded positions
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
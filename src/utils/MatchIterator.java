@@ -0,0 +1,116 @@
+/* 343 Project Program */
+
+package src.utils;
+import src.CompiledPattern;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy iterator over the match offsets of a compiled pattern in a text.
+ * Matches are pulled from the algorithm in batches through its early-exit
+ * findMatches(text, from, limit, sink): the first batch holds one match, and
+ * each following batch resumes the scan just after the last match returned and
+ * is twice as large, up to MAX_BATCH. Taking the first few hits therefore costs
+ * only the scan up to them, and no more than MAX_BATCH offsets are held at once.
+ * Resuming re-reads at most the pattern length per batch.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class MatchIterator implements PrimitiveIterator.OfInt {
+    // Largest number of offsets fetched by one resumed scan
+    public static final int MAX_BATCH = 1024;
+
+    private static final int STREAM_CHARACTERISTICS =
+            Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    private final CompiledPattern pattern;
+    private final String text;
+    private int[] batch;
+    private int size;
+    private int index;
+    // Start of the next scan; all matches before it have been fetched
+    private int from;
+    private boolean exhausted;
+
+    private MatchIterator(CompiledPattern pattern, String text, int[] batch, boolean exhausted) {
+        this.pattern = pattern;
+        this.text = text;
+        this.batch = batch;
+        this.size = exhausted ? batch.length : 0;
+        this.exhausted = exhausted;
+    }
+
+    /**
+     * @param pattern The compiled pattern to search for
+     * @param text The text to search within; null has no matches
+     * @return An iterator that scans text only as far as its matches are consumed
+     */
+    public static MatchIterator over(CompiledPattern pattern, String text) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new MatchIterator(pattern, text, new int[1], text == null);
+    }
+
+    /**
+     * @param matches Offsets already found, in increasing order
+     * @return An iterator over matches
+     */
+    public static MatchIterator of(int[] matches) {
+        return new MatchIterator(null, null, matches, true);
+    }
+
+    /**
+     * @return An iterator without matches
+     */
+    public static MatchIterator empty() {
+        return of(new int[0]);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index == size && !exhausted) {
+            fetch();
+        }
+        return index < size;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch[index++];
+    }
+
+    /**
+     * @return The remaining matches as a sequential, sorted stream that is consumed lazily
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(this, STREAM_CHARACTERISTICS), false);
+    }
+
+    /**
+     * Runs the next resumed scan, stopping once the batch is full
+     */
+    private void fetch() {
+        // The previous batch was full, so matches are plentiful
+        if (size == batch.length && batch.length < MAX_BATCH) {
+            batch = new int[batch.length * 2];
+        }
+        int limit = batch.length;
+        size = 0;
+        index = 0;
+        pattern.findMatches(text, from, limit, position -> batch[size++] = position);
+
+        if (size < limit) {
+            exhausted = true;
+        } else {
+            from = batch[size - 1] + 1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/* 343 Project Program */
+
+package src.utils;
+
+/**
+ * Characteristics of a search pattern that decide which algorithm suits it:
+ * its length, the number of distinct characters it uses and its smallest period.
+ * The period is computed on the first call to getPeriod(), since choosing an
+ * algorithm does not need it.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class PatternProfile {
+    private final String pattern;
+    private final int distinctChars;
+    private final boolean repetitive;
+    // 0 until computed; racy but idempotent, as String caches its hash
+    private int period;
+
+    private PatternProfile(String pattern, int distinctChars, boolean repetitive) {
+        this.pattern = pattern;
+        this.distinctChars = distinctChars;
+        this.repetitive = repetitive;
+    }
+
+    /**
+     * Computes the profile of pattern
+     * @param pattern The pattern to analyze
+     * @return The pattern's profile
+     */
+    public static PatternProfile of(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        return new PatternProfile(pattern, distinctChars(pattern), isRepetitive(pattern));
+    }
+
+    /**
+     * Simple pattern repetition detection: whether the pattern starts with a
+     * substring repeated over its whole length. Each candidate length is checked
+     * in place by comparing the pattern with itself shifted by that length, so
+     * nothing is allocated and a mismatch usually ends the check at once.
+     * @param pattern The pattern to check
+     * @return true if the pattern is made of a repeated substring
+     */
+    public static boolean isRepetitive(String pattern) {
+        int m = pattern.length();
+        if (m < 4) return false;
+
+        // pattern starts with pattern[0, len) repeated m / len times exactly when
+        // those repetitions after the first equal the ones before them
+        for (int len = 1; len <= m / 2; len++) {
+            if (pattern.regionMatches(len, pattern, 0, len * (m / len - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the smallest period p of pattern, i.e. pattern[i] == pattern[i + p]
+     * for every valid i, from the longest proper border
+     * @param pattern The pattern to analyze
+     * @return The smallest period, or 0 for the empty pattern
+     */
+    public static int period(String pattern) {
+        int m = pattern.length();
+        if (m == 0) {
+            return 0;
+        }
+
+        // Border lengths as in the KMP failure function
+        int[] border = new int[m];
+        int len = 0;
+        for (int i = 1; i < m; i++) {
+            while (len > 0 && pattern.charAt(i) != pattern.charAt(len)) {
+                len = border[len - 1];
+            }
+            if (pattern.charAt(i) == pattern.charAt(len)) {
+                len++;
+            }
+            border[i] = len;
+        }
+        return m - border[m - 1];
+    }
+
+    /**
+     * Counts the distinct characters of pattern
+     * @param pattern The pattern to analyze
+     * @return Number of distinct characters
+     */
+    public static int distinctChars(String pattern) {
+        CharIntMap seen = new CharIntMap(0);
+        int count = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (seen.get(c) == 0) {
+                seen.put(c, 1);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Length of the pattern
+     */
+    public int getLength() {
+        return pattern.length();
+    }
+
+    /**
+     * @return Number of distinct characters in the pattern
+     */
+    public int getDistinctChars() {
+        return distinctChars;
+    }
+
+    /**
+     * @return Smallest period of the pattern
+     */
+    public int getPeriod() {
+        int p = period;
+        if (p == 0) {
+            p = period(pattern);
+            period = p;
+        }
+        return p;
+    }
+
+    /**
+     * @return Whether the pattern is made of a repeated substring
+     */
+    public boolean isRepetitive() {
+        return repetitive;
+    }
+}
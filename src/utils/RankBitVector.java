@@ -0,0 +1,138 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Immutable bit vector answering rank queries (number of 1 bits before a position)
+ * in constant time. Bits are packed 64 per long; a cumulative count is stored for
+ * every block of 256 bits, so a rank costs one lookup plus at most four popcounts
+ * and the counts add 1/8 to the size of the bits.
+ *
+ * Both arrays are held as buffers, so a vector can live on the heap or be a view
+ * over a memory-mapped file without being copied.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class RankBitVector {
+    // Bits per cumulative count
+    private static final int BLOCK_BITS = 256;
+    private static final int WORDS_PER_BLOCK = BLOCK_BITS / 64;
+
+    private final LongBuffer words;
+    private final IntBuffer ranks;
+    private final int length;
+
+    /**
+     * Builds the rank directory over packed bits
+     * @param words Bit i is bit (i % 64) of words[i / 64]
+     * @param length Number of bits
+     */
+    public RankBitVector(long[] words, int length) {
+        if (length < 0 || words.length != wordCount(length)) {
+            throw new IllegalArgumentException("need " + wordCount(length) + " words for " + length + " bits");
+        }
+        int[] ranks = new int[rankCount(length)];
+        int total = 0;
+        for (int w = 0; w < words.length; w++) {
+            if (w % WORDS_PER_BLOCK == 0) {
+                ranks[w / WORDS_PER_BLOCK] = total;
+            }
+            total += Long.bitCount(words[w]);
+        }
+        // rank1(length) may need the count after the last word
+        if (words.length % WORDS_PER_BLOCK == 0) {
+            ranks[words.length / WORDS_PER_BLOCK] = total;
+        }
+        this.words = LongBuffer.wrap(words);
+        this.ranks = IntBuffer.wrap(ranks);
+        this.length = length;
+    }
+
+    /**
+     * Wraps existing bits and rank directory, e.g. views over a mapped file
+     * @param words wordCount(length) longs of packed bits
+     * @param ranks rankCount(length) cumulative counts
+     * @param length Number of bits
+     */
+    public RankBitVector(LongBuffer words, IntBuffer ranks, int length) {
+        if (words.remaining() != wordCount(length) || ranks.remaining() != rankCount(length)) {
+            throw new IllegalArgumentException("buffer sizes do not match " + length + " bits");
+        }
+        this.words = words.slice();
+        this.ranks = ranks.slice();
+        this.length = length;
+    }
+
+    /**
+     * @param length Number of bits
+     * @return Number of longs holding the bits
+     */
+    public static int wordCount(int length) {
+        return (length + 63) >>> 6;
+    }
+
+    /**
+     * @param length Number of bits
+     * @return Number of cumulative counts in the rank directory
+     */
+    public static int rankCount(int length) {
+        return wordCount(length) / WORDS_PER_BLOCK + 1;
+    }
+
+    /**
+     * @return Number of bits
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param i A position in [0, length)
+     * @return The bit at position i
+     */
+    public boolean get(int i) {
+        return (words.get(i >>> 6) & (1L << i)) != 0;
+    }
+
+    /**
+     * @param i A position in [0, length]
+     * @return Number of 1 bits in positions [0, i)
+     */
+    public int rank1(int i) {
+        int word = i >>> 6;
+        int block = word / WORDS_PER_BLOCK;
+        int rank = ranks.get(block);
+        for (int w = block * WORDS_PER_BLOCK; w < word; w++) {
+            rank += Long.bitCount(words.get(w));
+        }
+        int bit = i & 63;
+        if (bit != 0) {
+            rank += Long.bitCount(words.get(word) & ((1L << bit) - 1));
+        }
+        return rank;
+    }
+
+    /**
+     * @param i A position in [0, length]
+     * @return Number of 0 bits in positions [0, i)
+     */
+    public int rank0(int i) {
+        return i - rank1(i);
+    }
+
+    /**
+     * @return Read-only view of the packed bits, for serialization
+     */
+    public LongBuffer words() {
+        return words.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return Read-only view of the rank directory, for serialization
+     */
+    public IntBuffer ranks() {
+        return ranks.asReadOnlyBuffer();
+    }
+}
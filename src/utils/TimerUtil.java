@@ -0,0 +1,152 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Timing helpers shared by the comparison harness and the benchmark suite.
+ * An operation is run repeatedly for a fixed wall-clock duration instead of
+ * being timed once, so that very fast searches (a few hundred nanoseconds on
+ * the 150 character text) still produce a meaningful score.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class TimerUtil {
+    // Result of every operation is folded in here so the JIT cannot drop the work
+    private static volatile long blackhole;
+
+    private TimerUtil() {
+    }
+
+    /**
+     * Runs the operation until at least durationNanos have elapsed.
+     * The clock is only read between batches of calls, and the batch size
+     * doubles until a batch is long enough that timer overhead is negligible.
+     *
+     * @param operation The operation to measure; its return value is consumed
+     * @param durationNanos Minimum length of the iteration in nanoseconds
+     * @return The measured iteration
+     */
+    public static Iteration runIteration(IntSupplier operation, long durationNanos) {
+        long gcBefore = gcCount();
+        long allocBefore = allocatedBytes();
+        long sink = 0;
+        long ops = 0;
+        int batch = 1;
+
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++) {
+                sink += operation.getAsInt();
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+            if (batch < (1 << 20)) {
+                batch <<= 1;
+            }
+        } while (elapsed < durationNanos);
+
+        long allocAfter = allocatedBytes();
+        blackhole += sink;
+
+        long allocated = (allocBefore < 0 || allocAfter < 0) ? -1 : allocAfter - allocBefore;
+        return new Iteration(ops, elapsed, allocated, gcCount() - gcBefore);
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread,
+     * or -1 if the JVM does not support allocation tracking.
+     *
+     * @return Allocated bytes for the current thread
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the total number of collections performed by all garbage collectors
+     *
+     * @return Collection count since JVM start
+     */
+    public static long gcCount() {
+        long total = 0;
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean bean : beans) {
+            long count = bean.getCollectionCount();
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Arithmetic mean of the values
+     */
+    public static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    /**
+     * Sample standard deviation of the values (0 when fewer than two values)
+     */
+    public static double stdev(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double mean = mean(values);
+        double sum = 0;
+        for (double v : values) {
+            sum += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    /**
+     * One timed iteration: how many operations ran, for how long, and what they allocated
+     */
+    public static class Iteration {
+        public final long operations;
+        public final long elapsedNanos;
+        public final long allocatedBytes;
+        public final long gcCount;
+
+        public Iteration(long operations, long elapsedNanos, long allocatedBytes, long gcCount) {
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+        }
+
+        public double nanosPerOp() {
+            return (double) elapsedNanos / operations;
+        }
+
+        public double opsPerSecond() {
+            return operations * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Bytes allocated per operation, or -1 if allocation tracking is unavailable
+         */
+        public double bytesPerOp() {
+            return allocatedBytes < 0 ? -1 : (double) allocatedBytes / operations;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/* 343 Project Program */
+
+package src.utils;
+import java.nio.ByteBuffer;
+
+/**
+ * Translates byte offsets in UTF-8 text into the char offsets of the same
+ * positions in the decoded String, so byte-level matches can be reported the
+ * way the String matchers report them. One pass over the bytes records the
+ * number of chars before every CHECKPOINT_INTERVAL-th byte; a translation then
+ * counts only the bytes after the nearest checkpoint. Offsets translated in
+ * increasing order (as matches are reported) continue from the previous one
+ * instead, so translating all the matches of a text costs one pass in total.
+ *
+ * Every byte that is not a continuation byte (10xxxxxx) starts a char, and the
+ * four-byte sequences start two (a surrogate pair). A byte offset inside a
+ * character is translated to the char offset just after that character.
+ * Instances keep the position of the last translation and are not thread-safe.
+ * @author Linda Miao
+ * @version 1.0
+ */
+public final class Utf8OffsetTranslator {
+    // Bytes between two recorded char counts
+    public static final int CHECKPOINT_INTERVAL = 4096;
+
+    private final ByteBuffer text;
+    private final int base;
+    private final int length;
+    // charsBefore[k] = chars encoded in the bytes before k * CHECKPOINT_INTERVAL
+    private final int[] charsBefore;
+    private final int charLength;
+    private int lastByteOffset;
+    private int lastCharOffset;
+
+    /**
+     * @param text UTF-8 bytes, from text.position() to text.limit(); the buffer must not change afterwards
+     */
+    public Utf8OffsetTranslator(ByteBuffer text) {
+        if (text == null) {
+            throw new IllegalArgumentException("text must not be null");
+        }
+        this.text = text;
+        this.base = text.position();
+        this.length = text.remaining();
+        this.charsBefore = new int[length / CHECKPOINT_INTERVAL + 1];
+        int chars = 0;
+        for (int i = 0; i < length; i++) {
+            if (i % CHECKPOINT_INTERVAL == 0) {
+                charsBefore[i / CHECKPOINT_INTERVAL] = chars;
+            }
+            chars += charsStartedBy(text.get(base + i));
+        }
+        this.charLength = chars;
+    }
+
+    /**
+     * @param text UTF-8 bytes; the array must not change afterwards
+     */
+    public Utf8OffsetTranslator(byte[] text) {
+        this(ByteBuffer.wrap(text));
+    }
+
+    /**
+     * @return Whether every byte is ASCII, in which case offsets translate to themselves
+     */
+    public boolean isAscii() {
+        return charLength == length;
+    }
+
+    /**
+     * @return Length of the decoded text in chars
+     */
+    public int charLength() {
+        return charLength;
+    }
+
+    /**
+     * @param byteOffset An offset in [0, byte length], relative to the buffer's position
+     * @return The char offset of the same position in the decoded text
+     */
+    public int toCharOffset(int byteOffset) {
+        if (byteOffset < 0 || byteOffset > length) {
+            throw new IllegalArgumentException("byte offset out of range: " + byteOffset);
+        }
+        if (isAscii()) {
+            return byteOffset;
+        }
+        // Continue from the last translation unless a checkpoint is closer
+        int checkpoint = byteOffset / CHECKPOINT_INTERVAL;
+        if (byteOffset < lastByteOffset || checkpoint * CHECKPOINT_INTERVAL > lastByteOffset) {
+            lastByteOffset = checkpoint * CHECKPOINT_INTERVAL;
+            lastCharOffset = charsBefore[checkpoint];
+        }
+        for (int i = lastByteOffset; i < byteOffset; i++) {
+            lastCharOffset += charsStartedBy(text.get(base + i));
+        }
+        lastByteOffset = byteOffset;
+        return lastCharOffset;
+    }
+
+    /**
+     * Translates every offset in place
+     * @param byteOffsets Offsets in [0, byte length], fastest in increasing order
+     * @return byteOffsets, now holding char offsets
+     */
+    public int[] toCharOffsets(int[] byteOffsets) {
+        for (int i = 0; i < byteOffsets.length; i++) {
+            byteOffsets[i] = toCharOffset(byteOffsets[i]);
+        }
+        return byteOffsets;
+    }
+
+    /**
+     * @return Number of chars starting at a byte: 0 for a continuation byte,
+     *         2 for the first byte of a four-byte sequence, 1 otherwise
+     */
+    private static int charsStartedBy(byte b) {
+        if ((b & 0xC0) == 0x80) {
+            return 0;
+        }
+        return (b & 0xF8) == 0xF0 ? 2 : 1;
+    }
+}